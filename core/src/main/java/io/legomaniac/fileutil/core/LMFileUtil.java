@@ -52,6 +52,7 @@ public final class LMFileUtil {
      */
     public void unload(){
         fileManager.saveConfigs();
+        fileManager.shutdown();
         fileManager = null;
     }
 
@@ -1,20 +1,34 @@
 package io.legomaniac.fileutil.core.config;
 
 import io.legomaniac.fileutil.core.LMFileUtil;
+import io.legomaniac.fileutil.core.config.io.ChecksumChannel;
+import io.legomaniac.fileutil.core.config.io.ConfigTokenizer;
+import io.legomaniac.fileutil.core.config.io.ConfigWriter;
+import io.legomaniac.fileutil.core.config.io.ScalarParser;
 import io.legomaniac.fileutil.core.config.node.*;
 import io.legomaniac.fileutil.core.config.node.section.ListSectionNode;
 import io.legomaniac.fileutil.core.config.node.section.ListValueNode;
 import io.legomaniac.fileutil.core.config.type.DynamicConfig;
+import io.legomaniac.fileutil.core.util.FileManager;
 import io.legomaniac.fileutil.core.util.MessageUtil;
 
 import javax.annotation.Nullable;
 import java.io.*;
-import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Abstract configuration file in the {@link org.bukkit.plugin.Plugin}'s main folder. Should this or its parent
@@ -26,7 +40,14 @@ public abstract class ConfigFile {
     protected final File file;
     protected final String fileName;
 
-    protected RootNode root = new RootNode();
+    protected volatile RootNode root = new RootNode(); // Replaced as a whole when the file is loaded
+    protected LoadMode loadMode = LoadMode.STREAM;
+    private volatile long savedModCount = -1; // The root's modification count when it was last written to disk
+    private volatile long loadedModCount = -1; // The root's modification count right after the file was last loaded
+    private volatile long contentHash = -1; // CRC32C of the file's contents when it was last read or written
+    private final Object diskLock = new Object(); // Held while writing, so writes from different threads don't overlap
+    private final Object editLock = new Object(); // Held while changing the structure, so changes don't overlap
+    private volatile boolean syncOnSave = false;
 
     protected final LMFileUtil fu = LMFileUtil.getInst();
     protected final MessageUtil mu = fu.getMessageUtil();
@@ -46,6 +67,13 @@ public abstract class ConfigFile {
         return fileName;
     }
 
+    /**
+     * @return The config file on disk
+     */
+    public final File getFile(){
+        return file;
+    }
+
     /**
      * This will return the Root {@link SectionNode}, which should always exist and not be null.
      * @return The root section node
@@ -54,6 +82,75 @@ public abstract class ConfigFile {
         return root;
     }
 
+    /**
+     * Takes an unchangeable snapshot of this config, which keeps its current state while the config itself keeps
+     * changing. The snapshot can be read, rendered or saved from any thread. Taking a snapshot of a config that hasn't
+     * changed since the last one returns that same snapshot, and otherwise only the sections that changed are copied.
+     * @return The snapshot of the root section
+     */
+    public final RootNode snapshot(){
+        synchronized(editLock){
+            return root.snapshot();
+        }
+    }
+
+    /**
+     * @return The way this file is read from disk when it is loaded
+     */
+    public final LoadMode getLoadMode(){
+        return loadMode;
+    }
+
+    /**
+     * Changes the way this file is read from disk when it is loaded. {@link LoadMode#MAPPED} is meant for very large
+     * files, such as player data stored in a {@link DynamicConfig}.
+     * @param loadMode The mode to use, ignored if null
+     */
+    public final void setLoadMode(LoadMode loadMode){
+        if(loadMode!=null) this.loadMode = loadMode;
+    }
+
+    /**
+     * Sets whether every save waits for the file's contents to be physically written to the storage device before it is
+     * swapped into place. This protects against losing the file in a power failure, at the cost of slower saves.
+     * @param syncOnSave True to force every save to the storage device
+     */
+    public final void setSyncOnSave(boolean syncOnSave){
+        this.syncOnSave = syncOnSave;
+    }
+
+    /**
+     * Sets whether this config can be read from other threads, such as async tasks, while it is changed or reloaded.
+     * Reads never block in this mode, but every change to a section copies that section's list of children, so it is
+     * best suited to configs that are read far more often than they are changed. Changes made from several threads
+     * should go through {@link #edit(Consumer)}.
+     * @param concurrent True to allow reading from any thread
+     */
+    public final void setConcurrent(boolean concurrent){
+        synchronized(editLock){
+            root.setConcurrent(concurrent);
+        }
+    }
+
+    /**
+     * @return True if this config can be read from other threads while it is changed
+     */
+    public final boolean isConcurrent(){
+        return root.isConcurrent();
+    }
+
+    /**
+     * Changes the structure of this config while holding its lock, so the change never overlaps with a reload or a
+     * change from another thread. Readers are not blocked.
+     * @param editor The change to make to the root section
+     */
+    public final void edit(Consumer<RootNode> editor){
+        if(editor==null) return;
+        synchronized(editLock){
+            editor.accept(root);
+        }
+    }
+
     /**
      * This method exists so that the default nodes to be defined by any type of configuration file can be specified. These
      * nodes should always be present in the in-memory and on disk path.
@@ -74,7 +171,15 @@ public abstract class ConfigFile {
     }
 
     /**
-     * Called when a plugin wants to reload the config file
+     * Called when a plugin wants to reload the config file. The file is merged into the current structure, so nodes and
+     * sections retrieved before the reload stay part of this config.
+     * <p>
+     * If this config is concurrent, the file is instead merged into a copy of the current structure, which then replaces
+     * it in a single step, so code reading this config on another thread sees either the old or the new structure, never
+     * a partly merged one. This also means reload can be called from any thread. Nodes and sections retrieved before the
+     * reload belong to the old structure, and should be retrieved again afterwards. Changes made to the old structure
+     * while the reload runs are lost unless they go through {@link #edit(Consumer)}.
+     * </p>
      */
     public final void reload(){
         load();
@@ -102,16 +207,139 @@ public abstract class ConfigFile {
     }
 
     /**
-     * Saves the config structure to the config file in the Plugin's directory
+     * Checks if anything in this config has changed since it was last saved.
+     * @return True if the config needs to be saved, false if the file on disk is already up-to-date
+     */
+    public final boolean isDirty(){
+        return root.getModCount()!=savedModCount;
+    }
+
+    /**
+     * Saves the config structure to the config file in the Plugin's directory. Nothing is written if the config hasn't
+     * changed since it was last saved and the file still exists. The structure is streamed straight to disk, so the
+     * contents of the file are never held in memory all at once.
      */
     public final void save(){
-        try(Writer writer = new OutputStreamWriter(new FileOutputStream(file, false), StandardCharsets.UTF_8)){
-            StringBuilder out = new StringBuilder();
-            root.saveRoot(out);
-            writer.write(out.toString());
-            mu.console(fu.getPluginName(), "&b" + fileName + " was saved.");
-        } catch (IOException ex){
-            mu.console(fu.getPluginName(), "&cUnable to save " + fileName + ".");
+        if(!isDirty() && file.exists()) return;
+        long modCount = root.getModCount();
+        writeFile(channel -> {
+            Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+            root.saveRoot(new ConfigWriter(writer));
+            writer.flush();  // Not closed, as that would close the channel before it can be forced
+        }, modCount);
+    }
+
+    /**
+     * Saves the config structure without blocking the calling thread. A snapshot of the current structure is taken right
+     * away and written to disk by the {@link FileManager} on another thread. Further calls made before that write happens
+     * are combined into a single write of the latest structure.
+     */
+    public final void saveAsync(){
+        FileManager fileManager = fu.getFileManager();
+        if(fileManager==null){  // Already unloaded, so there is nothing to hand the write to
+            save();
+            return;
+        }
+        fileManager.scheduleSave(this);
+    }
+
+    /**
+     * Writes a snapshot of this config to the config file, streaming it to disk. If a more recent version of the
+     * structure has already been written, which can happen when saves are made from several threads, the snapshot is
+     * discarded. A snapshot taken before the file was last loaded is discarded as well, so a save that was still waiting
+     * never overwrites the changes a reload just read from the file.
+     * <p>
+     * The contents are first written to a temporary file next to the config file, which then replaces the config file in
+     * a single step. Anything reading the file will either see the old or the new contents, never a partial file.
+     * </p>
+     * @param snapshot The snapshot from {@link #snapshot()}
+     */
+    public final void write(RootNode snapshot){
+        if(snapshot==null) return;
+        writeFile(channel -> {
+            Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+            snapshot.saveRoot(new ConfigWriter(writer));
+            writer.flush();  // Not closed, as that would close the channel before it can be forced
+        }, snapshot.getModCount());
+    }
+
+    /**
+     * Writes the config file through a temporary file, unless a more recent version has already been written or the
+     * version is older than the last load. If the new contents are the same as the ones last loaded or saved, the config
+     * file is left untouched.
+     * @param contents Writes the contents of the file to the temporary file's channel
+     * @param modCount The root's modification count of the version being written
+     */
+    private void writeFile(FileContents contents, long modCount){
+        synchronized(diskLock){
+            if(modCount <= savedModCount && file.exists()) return;
+            if(modCount < loadedModCount) return;  // Taken before a reload, so it would undo what was read from the file
+            Path target = file.toPath();
+            Path temp = target.resolveSibling(fileName + ".tmp");
+            try {
+                long checksum;
+                try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)){
+                    ChecksumChannel out = new ChecksumChannel(channel);
+                    contents.writeTo(out);
+                    checksum = out.getChecksum();
+                    if(syncOnSave && checksum!=contentHash) channel.force(true);
+                }
+                if(checksum==contentHash && file.exists()){  // Same contents as the file already holds, so leave it as is
+                    Files.deleteIfExists(temp);
+                    savedModCount = modCount;
+                    return;
+                }
+                moveIntoPlace(temp, target);
+                savedModCount = modCount;
+                contentHash = checksum;
+                mu.console(fu.getPluginName(), "&b" + fileName + " was saved.");
+            } catch (IOException ex){
+                mu.console(fu.getPluginName(), "&cUnable to save " + fileName + ".");
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored){}
+            }
+        }
+    }
+
+    /**
+     * Writes the contents of a config file to an open channel
+     */
+    @FunctionalInterface
+    private interface FileContents {
+        void writeTo(WritableByteChannel channel) throws IOException;
+    }
+
+    /**
+     * Checks if the file on disk holds different contents than when this config last loaded or saved it, such as after
+     * it was edited by hand. The whole file is read to check this, but nothing is parsed.
+     * @return True if the contents changed, false if they are the same or the file can't be read
+     */
+    public final boolean hasChangedOnDisk(){
+        synchronized(diskLock){  // A save in progress has set the new checksum once this is held
+            if(!file.exists()) return false;
+            try(ChecksumChannel channel = new ChecksumChannel(FileChannel.open(file.toPath(), StandardOpenOption.READ))){
+                ByteBuffer buffer = ByteBuffer.allocate(8192);
+                while(channel.read(buffer)!=-1) buffer.clear();
+                return channel.getChecksum()!=contentHash;
+            } catch (IOException ex){
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Replaces the config file with a newly written temporary file, atomically if the file system supports it.
+     * @param temp The temporary file holding the new contents
+     * @param target The config file to replace
+     * @throws IOException If the file could not be moved
+     */
+    private void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex){
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
@@ -147,31 +375,33 @@ public abstract class ConfigFile {
      * @return The final created section, useful for then adding nodes directly.
      */
     protected final SectionNode createSection(String path){
-        if(path==null || path.isEmpty()) return null; // Ignore empty or null paths
-        String[] parts = path.split("\\.");
-        SectionNode current = root;
-        for(int i = 0; i < parts.length; i++){
-            String part = parts[i];
-            ConfigNode existing = current.getChild(part);
-            if(i==parts.length-1){  // Last part. Create new node if it doesn't exist
-                if(existing instanceof SectionNode sn){
-                    current = sn;
-                } else {
-                    SectionNode created = new SectionNode(current.getNextIndex(), path, part);
-                    current.add(created);
-                    current = created;
-                }
-            } else {  // Intermediate section: must be SectionNode
-                if(existing instanceof SectionNode sn){
-                    current = sn;
-                } else {
-                    SectionNode created = new SectionNode(current.getNextIndex(), path, part);
-                    current.add(created);
-                    current = created;
+        synchronized(editLock){
+            if(path==null || path.isEmpty()) return null; // Ignore empty or null paths
+            String[] parts = path.split("\\.");
+            SectionNode current = root;
+            for(int i = 0; i < parts.length; i++){
+                String part = parts[i];
+                ConfigNode existing = current.getChild(part);
+                if(i==parts.length-1){  // Last part. Create new node if it doesn't exist
+                    if(existing instanceof SectionNode sn){
+                        current = sn;
+                    } else {
+                        SectionNode created = new SectionNode(current.getNextIndex(), path, part);
+                        current.add(created);
+                        current = created;
+                    }
+                } else {  // Intermediate section: must be SectionNode
+                    if(existing instanceof SectionNode sn){
+                        current = sn;
+                    } else {
+                        SectionNode created = new SectionNode(current.getNextIndex(), path, part);
+                        current.add(created);
+                        current = created;
+                    }
                 }
             }
+            return current;
         }
-        return current;
     }
 
     /**
@@ -188,15 +418,17 @@ public abstract class ConfigFile {
      * @return True if the node was added or false if not
      */
     public final boolean createBlank(String path){
-        BlankNode node = new BlankNode();
-        if(path==null || path.isEmpty()){
-            root.add(node);
-        } else {
-            SectionNode parent = createSection(path);
-            if(parent==null) return false;
-            parent.add(node);
+        synchronized(editLock){
+            BlankNode node = new BlankNode();
+            if(path==null || path.isEmpty()){
+                root.add(node);
+            } else {
+                SectionNode parent = createSection(path);
+                if(parent==null) return false;
+                parent.add(node);
+            }
+            return true;
         }
-        return true;
     }
 
     /**
@@ -215,15 +447,17 @@ public abstract class ConfigFile {
      * @return True if the node was added, false if not
      */
     public final boolean createCommentNode(String path, String comment){
-        CommentNode node = new CommentNode(comment);
-        if(path==null || path.isEmpty()){
-            root.add(node);  // Add to root
-        } else {
-            SectionNode parent = createSection(path);  // Add to the parent node of the path
-            if(parent==null) return false;
-            parent.add(node);
+        synchronized(editLock){
+            CommentNode node = new CommentNode(comment);
+            if(path==null || path.isEmpty()){
+                root.add(node);  // Add to root
+            } else {
+                SectionNode parent = createSection(path);  // Add to the parent node of the path
+                if(parent==null) return false;
+                parent.add(node);
+            }
+            return true;
         }
-        return true;
     }
 
     /**
@@ -234,11 +468,13 @@ public abstract class ConfigFile {
      * @return True if the node was created, false if not
      */
     public final boolean createValueNode(String path, String key, Object defaultValue){
-        if(path==null || path.isEmpty()) return false;
-        SectionNode parent = getParentNode(path);  // Determine the parent section from the path
-        if(parent==null) return false;
-        parent.add(new ValueNode(path, key, defaultValue));
-        return true;
+        synchronized(editLock){
+            if(path==null || path.isEmpty()) return false;
+            SectionNode parent = getParentNode(path);  // Determine the parent section from the path
+            if(parent==null) return false;
+            parent.add(new ValueNode(path, key, defaultValue));
+            return true;
+        }
     }
 
     // Value getters
@@ -253,6 +489,16 @@ public abstract class ConfigFile {
         return root.getSection(path);
     }
 
+    /**
+     * Returns the section along a pre-parsed path
+     * @param path The path of the section
+     * @return An instance of {@link SectionNode} if found, null if not
+     */
+    public final SectionNode getSection(ConfigPath path){
+        if(path==null) return null;
+        return root.getSection(path);
+    }
+
     /**
      * Returns the parent node of a specific path. If there is only one "key", then the parent will be returned as the
      * Root directory.
@@ -280,31 +526,7 @@ public abstract class ConfigFile {
      * @return The converted object, and if no conditions were met will return the original value as a String
      */
     protected final Object getValueFromString(String raw){
-        raw = raw.strip();
-        if(raw.equalsIgnoreCase("true") || raw.equalsIgnoreCase("false")) return Boolean.parseBoolean(raw);
-        // Quoted String
-        String value = raw;
-        boolean hadQuotes = false;
-        if((raw.startsWith("\"") && raw.endsWith("\"")) || (raw.startsWith("'") && raw.endsWith("'"))){
-            value = raw.substring(1, raw.length() - 1).strip();
-            hadQuotes = true;
-        }
-        // Number parsing
-        try {  // Check for decimals
-            if(value.contains(".") || value.toLowerCase().contains("e")) return new BigDecimal(value);
-            return Integer.parseInt(value);  // Check for an integer
-        } catch (NumberFormatException ignoredInt){
-            try {
-                return Long.parseLong(value);  // Check for a long
-            } catch (NumberFormatException ignoredLong){
-                try {
-                    return new BigDecimal(value); // fallback for large numeric value
-                } catch (NumberFormatException ignoredDecimal){  // Not a number, treat it as a String
-                    if(hadQuotes) return value; // return un quoted value
-                    return raw;
-                }
-            }
-        }
+        return ScalarParser.parse(raw);
     }
 
     /**
@@ -325,120 +547,109 @@ public abstract class ConfigFile {
      */
     @Nullable
     protected final SectionNode parseToTempTree(){
-        try {
-            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
-            Deque<SectionNode> sectionStack = new ArrayDeque<>();
-            SectionNode tempRoot = new RootNode();
-            sectionStack.addLast(tempRoot); // Adds the root section to the current stack
-            int index = 0; // The starting line index
-            while(index < lines.size()){
-                String raw = lines.get(index);
-                index++; // Increments the index value
-                String line = raw.strip();  // Removes trailing and leading spaces
-
-                int indent = raw.indexOf(line);  // Retrieves the amount of leading spaces
-                if(indent % 2 != 0){  // If the indentation is invalid, continue on
-                    mu.console(fu.getPluginName(), "&eWarning: Invalid indentation in " + fileName + ": \"" + raw + "\"");
-                    continue;
-                }
-                int depth = indent / 2;  // The depth of the current line
-
-                // Root is depth 0, back tracking indentations when last in a subsection
-                while(sectionStack.size() > depth + 1) sectionStack.pollLast();
-                SectionNode currentSection = sectionStack.peekLast();
-                if(currentSection==null) continue;
-
-                if(line.endsWith(":")){  // Section
-                    String sectionName = line.substring(0, line.length() - 1).trim();
-
-                    // Build full path
-                    String parentPath = currentSection.getPath();
-                    if(parentPath==null || parentPath.isEmpty()) parentPath = "";
-                    String fullPath = parentPath.isEmpty() ? sectionName : parentPath + "." + sectionName;
-
-                    // Extract final key
-                    String key = sectionName.contains(".") ?
-                            sectionName.substring(sectionName.lastIndexOf(".") + 1) :
-                            sectionName;
-
-                    // The next index to look forward for
-                    int nextIndex = currentSection.getNextIndex();
-
-                    // Peek next line to see if it's a list item
-                    SectionNode section;
-
-                    // Peek ahead for list items
-                    if(index < lines.size() && lines.get(index).strip().startsWith("- ")){
-                        // Create a new section that contains a list
-                        ListSectionNode listSection = new ListSectionNode(nextIndex, fullPath, key);
-                        while(index < lines.size()){  // Consume list items
-                            String peekRaw = lines.get(index);
-                            String peekLine = peekRaw.strip();
-
-                            // Removes any comments after the value, as they are unnecessary and will create conflicts
-                            if(peekLine.contains("#")) peekLine = peekLine.substring(0, peekLine.indexOf("#"));
-                            int peekIndent = peekRaw.indexOf(peekLine);
-                            if(peekIndent <= indent) break;
-                            if(!peekLine.startsWith("- ")) break;
-
-                            Object value = getValueFromString(peekLine.substring(2).trim());
-                            listSection.addValueNode(new ListValueNode(value));
-                            index++;
-                        }
-                        section = listSection;
-                    } else {  // This is a normal section, so create it and continue on
-                        section = new SectionNode(nextIndex, fullPath, key);
-                    }
-                    currentSection.add(section);
-                    sectionStack.addLast(section);
-                    continue;
-                }
-
-                if(line.isEmpty()){  // Adds a new blank line
-                    SectionNode sec = sectionStack.peekLast();
-                    if(sec!=null) sec.add(new BlankNode());
-                    continue;
-                }
+        if(loadMode==LoadMode.MAPPED){
+            try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                long checksum = ChecksumChannel.checksum(mapped);  // Taken first, as the tokenizer moves through the buffer
+                SectionNode parsed = parseTokens(new ConfigTokenizer(mapped));
+                contentHash = checksum;
+                return parsed;
+            } catch (IOException ex){
+                mu.console(fu.getPluginName(), "&cAn error occurred when attempting to read " + fileName + ".");
+                return null;
+            }
+        }
+        try(ChecksumChannel channel = new ChecksumChannel(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+            ConfigTokenizer tokens = new ConfigTokenizer(channel)){
+            SectionNode parsed = parseTokens(tokens);
+            contentHash = channel.getChecksum();  // The tokenizer reads every line, so this covers the whole file
+            return parsed;
+        } catch (IOException ex){
+            mu.console(fu.getPluginName(), "&cAn error occurred when attempting to read " + fileName + ".");
+            return null;
+        }
+    }
 
-                if(line.startsWith("#")){  // Adds a new comment line as is
-                    SectionNode sec = sectionStack.peekLast();
-                    if(sec!=null) sec.add(new CommentNode(raw));
-                    continue;
-                }
+    /**
+     * Builds a tree structure from every line the tokenizer reads, using the indentation of each line to find the
+     * section it belongs to.
+     * @param tokens The tokenizer reading the config file
+     * @return The root of the parsed tree
+     * @throws IOException If the file could not be read
+     */
+    private SectionNode parseTokens(ConfigTokenizer tokens) throws IOException {
+        Deque<SectionNode> sectionStack = new ArrayDeque<>();
+        SectionNode tempRoot = new RootNode();
+        sectionStack.addLast(tempRoot); // Adds the root section to the current stack
+        while(tokens.next()){
+            int indent = tokens.indent();  // The amount of leading spaces
+            if(indent % 2 != 0){  // If the indentation is invalid, continue on
+                mu.console(fu.getPluginName(), "&eWarning: Invalid indentation in " + fileName + ": \"" + tokens.line() + "\"");
+                continue;
+            }
+            int depth = indent / 2;  // The depth of the current line
 
-                // Key-value
-                String[] split = line.split(":", 2);
-                if(split.length !=2) continue;  // if the line doesn't have a key-value format
+            // Root is depth 0, back tracking indentations when last in a subsection
+            while(sectionStack.size() > depth + 1) sectionStack.pollLast();
+            SectionNode currentSection = sectionStack.peekLast();
+            if(currentSection==null) continue;
 
-                // Key and value separated into two string variables
-                String key = split[0].trim();
-                String value = split[1].trim();
+            ConfigTokenizer.TokenType type = tokens.type();
+            if(type==ConfigTokenizer.TokenType.BLANK){  // Adds a new blank line
+                currentSection.add(new BlankNode());
+                continue;
+            }
 
-                value = stripEdgeQuotes(value); // Removes quotes for only in-memory
+            if(type==ConfigTokenizer.TokenType.COMMENT){  // Adds a new comment line as is
+                currentSection.add(new CommentNode(tokens.line()));
+                continue;
+            }
 
-                // Remove inline Comments
-                String inlineComment = null;
-                int hashIndex = value.indexOf(" #");
-                if(hashIndex != -1){
-                    inlineComment = value.substring(hashIndex + 2).trim();
-                    value = value.substring(0, hashIndex).trim(); // Remove the comment part
+            if(type==ConfigTokenizer.TokenType.SECTION){
+                String sectionName = tokens.key();
+                String fullPath = combinePath(currentSection.getPath(), sectionName);
+
+                // Extract final key
+                String key = sectionName.contains(".") ?
+                        sectionName.substring(sectionName.lastIndexOf(".") + 1) :
+                        sectionName;
+
+                // The next index to look forward for
+                int nextIndex = currentSection.getNextIndex();
+                SectionNode section;
+
+                // Look at the next line to see if this section holds a list
+                boolean more = tokens.next();
+                if(more && tokens.type()==ConfigTokenizer.TokenType.LIST_ITEM && tokens.indent() > indent){
+                    // Create a new section that contains a list, suited to its first value, consuming every list item
+                    Object value = getValueFromString(tokens.rawValue());
+                    ListSectionNode listSection = ListSectionNode.create(nextIndex, fullPath, key, value);
+                    listSection.addValueNode(new ListValueNode(value));
+                    while((more = tokens.next()) && tokens.type()==ConfigTokenizer.TokenType.LIST_ITEM && tokens.indent() > indent){
+                        listSection.addValueNode(new ListValueNode(getValueFromString(tokens.rawValue())));
+                    }
+                    section = listSection;
+                } else {  // This is a normal section, so create it and continue on
+                    section = new SectionNode(nextIndex, fullPath, key);
                 }
+                if(more) tokens.pushBack();  // The line that was looked at belongs to the next iteration
+                currentSection.add(section);
+                sectionStack.addLast(section);
+                continue;
+            }
 
-                String parentPath = currentSection.getPath();  // Current parent section path
-                if(parentPath==null || parentPath.isEmpty()) parentPath = "";
-                String fullPath = parentPath.isEmpty() ? key : parentPath + "." + key;  // FUll path = parentPath + "." + key
+            if(type!=ConfigTokenizer.TokenType.VALUE) continue;  // A list item without a list section
 
-                // Create value node with full path and key
-                ValueNode valueNode = new ValueNode(fullPath, key, getValueFromString(value));
-                if(inlineComment!=null) valueNode.setInlineComments(List.of(inlineComment));
+            // Key-value, with any quotes and inline comment already separated from the value
+            String key = tokens.key();
+            String fullPath = combinePath(currentSection.getPath(), key);
+            ValueNode valueNode = ValueNode.fromRaw(fullPath, key, tokens.rawValue());  // Parsed when first used
+            String inlineComment = tokens.inlineComment();
+            if(inlineComment!=null) valueNode.setInlineComments(List.of(inlineComment));
 
-                currentSection.add(valueNode);  // Adds the new node to the current section
-            }
-            return tempRoot;
-        } catch (IOException ex){
-            mu.console(fu.getPluginName(), "&cAn error occurred when attempting to read " + fileName + ".");
-            return null;
+            currentSection.add(valueNode);  // Adds the new node to the current section
         }
+        return tempRoot;
     }
 
     /**
@@ -455,37 +666,38 @@ public abstract class ConfigFile {
         if(source==null) return;
         for(ConfigNode node : source.getChildren()){
             if(node instanceof SectionNode srcSection && !(srcSection instanceof ListSectionNode)){
-                SectionNode tgtSection = target.getSection(srcSection.getKey());  // Check if target already has this section
-                if(tgtSection != null){  // Section exists -> recurse
+                ConfigNode existing = target.getDirectChild(srcSection.getKey());  // Check if target already has this section
+                if(existing instanceof SectionNode tgtSection){  // Section exists -> recurse
                     mergeSection(srcSection, tgtSection, dynamic);
-                } else if(dynamic){  // Section missing -> add it
+                } else if(existing==null && dynamic){  // Section missing -> add it
                     SectionNode section = new SectionNode(target.getNextIndex(), combinePath(target.getPath(), srcSection.getKey()),
                             srcSection.getKey());
                     target.add(section);
                     mergeSection(srcSection, section, true);  // recursively add children
                 }
             } else if(node instanceof ListSectionNode srcList){
-                ConfigNode existing = target.getChild(srcList.getKey());
+                ConfigNode existing = target.getDirectChild(srcList.getKey());
                 if(existing instanceof ListSectionNode tl){  // Merge list items
                     List<ListValueNode> values = srcList.getNodes();
                     if(values==null || values.isEmpty()) continue;
                     for(ListValueNode val : values){
                         if(!tl.containsNode(val.getValue()) && dynamic) tl.addValueNode(new ListValueNode(val.getValue()));
                     }
-                } else if(dynamic){  // List missing -> create new one
-                    ListSectionNode listNode = new ListSectionNode(target.getNextIndex(),
-                            combinePath(target.getPath(), srcList.getKey()), srcList.getKey());
+                } else if(existing==null && dynamic){  // List missing -> create new one
                     List<ListValueNode> nodes = srcList.getNodes();
                     if(nodes==null || nodes.isEmpty()) continue;
+                    ListSectionNode listNode = ListSectionNode.create(target.getNextIndex(),
+                            combinePath(target.getPath(), srcList.getKey()), srcList.getKey(), nodes.get(0).getValue());
                     for(ListValueNode val : nodes) listNode.addValueNode(new ListValueNode(val.getValue()));
                     target.add(listNode);
                 }
             } else if(node instanceof ValueNode srcValue){
-                ValueNode tgtValue = (ValueNode) target.getChild(srcValue.getKey());
-                if(tgtValue!=null){  // Value exists -> Overwrite value
-                    tgtValue.setValue(srcValue.getValue());
-                } else if(dynamic){  // Value missing -> add new
-                    ValueNode valueNode = new ValueNode(target.getPath(), srcValue.getKey(), srcValue.getValue());
+                ConfigNode existing = target.getDirectChild(srcValue.getKey());
+                if(existing instanceof ValueNode tgtValue){  // Value exists -> Overwrite value
+                    tgtValue.copyValue(srcValue);
+                } else if(existing==null && dynamic){  // Value missing -> add new
+                    ValueNode valueNode = new ValueNode(target.getPath(), srcValue.getKey(), null);
+                    valueNode.copyValue(srcValue);
                     valueNode.setInlineComments(srcValue.getInlineComments());
                     target.add(valueNode);
                 }
@@ -500,29 +712,100 @@ public abstract class ConfigFile {
                 if(!dynamic) continue;
                 int sourceIndex = blankNode.getIndex();
                 BlankNode targetNode = target.getBlankNode(sourceIndex);
-                if(targetNode==null) target.add(new BlankNode());
+                if(targetNode==null) target.add(new BlankNode(), sourceIndex);
             }
         }
     }
 
     /**
-     * Merges the temporary directory
+     * Merges the temporary directory into the current structure. A concurrent config is merged into a copy of the current
+     * structure instead, which then replaces it. The copy's modification count is raised above the current one and the
+     * last saved one, so saves already waiting can still tell if they are out of date, and later saves are never mistaken
+     * for older versions. If the merged structure holds exactly what the file does, the config is not dirty afterwards,
+     * so it isn't written again.
      * @param tempRoot The on-disk config structure
      */
     public final void mergeTemporary(SectionNode tempRoot){
         boolean isDynamic = this instanceof DynamicConfig;
-        mergeSection(tempRoot, this.root, isDynamic);
+        synchronized(editLock){
+            RootNode current = this.root;
+            RootNode merged = current;
+            if(current.isConcurrent()){  // Readers on other threads must never see a partly merged structure
+                merged = current.deepCopy();
+                mergeSection(tempRoot, merged, isDynamic);
+                merged.setConcurrent(true);
+                // The old root may have changed, or had a newer version saved, while merging
+                merged.raiseModCount(Math.max(current.getModCount(), savedModCount));
+                this.root = merged;
+            } else {
+                mergeSection(tempRoot, current, isDynamic);  // In place, so nodes a plugin kept are still part of it
+            }
+            loadedModCount = merged.getModCount();
+            if(matchesFile(tempRoot, merged)) markSaved(merged.getModCount());
+        }
+    }
+
+    /**
+     * Marks a version of the structure as the one on disk, unless a more recent version has already been written
+     * @param modCount The root's modification count of the version on disk
+     */
+    private void markSaved(long modCount){
+        synchronized(diskLock){
+            if(modCount > savedModCount) savedModCount = modCount;
+        }
+    }
+
+    /**
+     * Checks if a merged section holds the same nodes, in the same order and with the same values, as the section read
+     * from the file, so writing it would not change anything the file holds.
+     * @param source The section read from the file
+     * @param target The merged section in memory
+     * @return True if both sections hold the same nodes
+     */
+    private static boolean matchesFile(SectionNode source, SectionNode target){
+        List<ConfigNode> sourceChildren = source.getChildren();
+        List<ConfigNode> targetChildren = target.getChildren();
+        if(sourceChildren.size()!=targetChildren.size()) return false;
+        for(int i = 0; i < sourceChildren.size(); i++){
+            ConfigNode src = sourceChildren.get(i);
+            ConfigNode tgt = targetChildren.get(i);
+            if(src.getClass()!=tgt.getClass() && !(src instanceof ListSectionNode && tgt instanceof ListSectionNode)) return false;
+            if(src instanceof ListSectionNode srcList){
+                ListSectionNode tgtList = (ListSectionNode) tgt;
+                if(!srcList.getKey().equals(tgtList.getKey()) || !srcList.getValues().equals(tgtList.getValues())) return false;
+            } else if(src instanceof SectionNode srcSection){
+                if(!srcSection.getKey().equals(tgt.getKey()) || !matchesFile(srcSection, (SectionNode) tgt)) return false;
+            } else if(src instanceof ValueNode srcValue){
+                ValueNode tgtValue = (ValueNode) tgt;
+                if(!srcValue.getKey().equals(tgtValue.getKey()) || !srcValue.hasSameValue(tgtValue)) return false;
+                if(!inlineComments(srcValue).equals(inlineComments(tgtValue))) return false;
+            } else if(src instanceof CommentNode srcComment){
+                if(!srcComment.getComment().equals(((CommentNode) tgt).getComment())) return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> inlineComments(ValueNode node){
+        List<String> comments = node.getInlineComments();
+        return comments==null ? List.of() : comments;
     }
 
     /**
-     * Strips the surrounding quotes " and ' from the string when in use by a plugin
-     * @param input The input string with quotations
-     * @return The un-quoted string
+     * The ways a configuration file can be read from disk
      */
-    protected final String stripEdgeQuotes(String input) {
-        if(input==null || input.isEmpty()) return input;
-        return input.replaceAll("^(\"|')|(\"|')$", ""
-        );
+    public enum LoadMode {
+        /**
+         * Reads the file through a small buffer that is reused for every part of the file. This is the default, and
+         * suits most configuration files.
+         */
+        STREAM,
+        /**
+         * Maps the whole file into memory and parses it straight from the mapping, so the file is never copied onto the
+         * heap. This is faster for files that are several megabytes in size. On Windows, a mapped file can't be replaced
+         * until the mapping is garbage collected, which may cause saving right after loading to fail.
+         */
+        MAPPED
     }
 
 }
@@ -0,0 +1,95 @@
+package io.legomaniac.fileutil.core.config;
+
+import java.util.Arrays;
+
+/**
+ * A dot separated path that has already been split into its keys. Creating one of these once, for example as a constant,
+ * and passing it to the getters in {@link io.legomaniac.fileutil.core.config.node.SectionNode} or {@link ConfigFile}
+ * avoids splitting the same String every time a value is read.
+ */
+public final class ConfigPath {
+
+    private final String path;
+    private final String[] segments;
+
+    private ConfigPath(String path, String[] segments){
+        this.path = path;
+        this.segments = segments;
+    }
+
+    /**
+     * Parses a dot separated path, such as "settings.combat.cooldown", into a reusable path.
+     * @param path The dot separated path
+     * @return The parsed path
+     * @throws IllegalArgumentException If the path is null or empty
+     */
+    public static ConfigPath of(String path){
+        if(path==null || path.isEmpty()) throw new IllegalArgumentException("A config path cannot be null or empty");
+        int count = 1;
+        for(int i = 0; i < path.length(); i++) if(path.charAt(i)=='.') count++;
+        String[] segments = new String[count];
+        int start = 0;
+        for(int i = 0; i < count - 1; i++){
+            int dot = path.indexOf('.', start);
+            segments[i] = path.substring(start, dot);
+            start = dot + 1;
+        }
+        segments[count - 1] = path.substring(start);
+        return new ConfigPath(path, segments);
+    }
+
+    /**
+     * Creates a new path with one more key added to the end of this one.
+     * @param key The key to append, which should not contain a "."
+     * @return The child path
+     */
+    public ConfigPath child(String key){
+        if(key==null || key.isEmpty()) throw new IllegalArgumentException("A config key cannot be null or empty");
+        String[] childSegments = Arrays.copyOf(segments, segments.length + 1);
+        childSegments[segments.length] = key;
+        return new ConfigPath(path + "." + key, childSegments);
+    }
+
+    /**
+     * @return The amount of keys in this path
+     */
+    public int length(){
+        return segments.length;
+    }
+
+    /**
+     * Retrieves a single key of this path, where 0 is the key closest to the root.
+     * @param index The position of the key
+     * @return The key at that position
+     */
+    public String segment(int index){
+        return segments[index];
+    }
+
+    /**
+     * @return The final key in this path, which is the key of the node it points to
+     */
+    public String getKey(){
+        return segments[segments.length - 1];
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(this==o) return true;
+        return o instanceof ConfigPath other && path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode(){
+        return path.hashCode();
+    }
+
+    /**
+     * @return The dot separated path this was created from
+     */
+    @Override
+    public String toString(){
+        return path;
+    }
+
+}
@@ -0,0 +1,70 @@
+package io.legomaniac.fileutil.core.config.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.util.zip.CRC32C;
+
+/**
+ * Passes reads and writes on to another channel, keeping a CRC32C checksum of every byte that goes through it. This allows
+ * a config file to be checksummed while it is loaded or saved, without reading the file a second time.
+ */
+public final class ChecksumChannel implements ByteChannel {
+
+    private final ByteChannel channel;
+    private final CRC32C checksum = new CRC32C();
+
+    /**
+     * Creates a channel checksumming everything read from or written to another channel
+     * @param channel The channel to read from and write to, which is closed when this channel is closed
+     */
+    public ChecksumChannel(ByteChannel channel){
+        this.channel = channel;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int start = dst.position();
+        int read = channel.read(dst);
+        if(read > 0) checksum.update(dst.duplicate().limit(dst.position()).position(start));
+        return read;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        ByteBuffer written = src.duplicate();
+        int count = channel.write(src);
+        if(count > 0) checksum.update(written.limit(written.position() + count));
+        return count;
+    }
+
+    /**
+     * @return The checksum of every byte read or written so far
+     */
+    public long getChecksum(){
+        return checksum.getValue();
+    }
+
+    /**
+     * Creates the checksum of a buffer's remaining bytes, in the same way as a channel reading them would, without
+     * changing its position
+     * @param buffer The bytes to checksum
+     * @return The checksum of the bytes between the buffer's position and limit
+     */
+    public static long checksum(ByteBuffer buffer){
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.duplicate());
+        return checksum.getValue();
+    }
+
+    @Override
+    public boolean isOpen(){
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
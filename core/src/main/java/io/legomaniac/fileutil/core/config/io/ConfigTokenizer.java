@@ -0,0 +1,315 @@
+package io.legomaniac.fileutil.core.config.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a configuration file one line at a time straight from its UTF-8 bytes, splitting every line into an indentation,
+ * key, value and comment. Nothing is turned into a String until a parser asks for that part of the line, and the lines
+ * themselves are never copied, which keeps loading large files cheap. Every character that has a meaning to the parser
+ * (spaces, ":", "#", "-" and quotes) is a single byte in UTF-8, so the bytes can be scanned without decoding them first.
+ */
+public final class ConfigTokenizer implements Closeable {
+
+    /**
+     * The kind of line the tokenizer is currently positioned on
+     */
+    public enum TokenType {
+        /** An empty line, or a line with only whitespace */
+        BLANK,
+        /** A line starting with "#" */
+        COMMENT,
+        /** A key without a value, which will contain the lines indented below it */
+        SECTION,
+        /** A key-value pair */
+        VALUE,
+        /** A line starting with "- ", belonging to the list section above it */
+        LIST_ITEM
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private boolean endOfInput;
+    private boolean firstLine = true;
+    private byte[] scratch;
+
+    // The current line, as absolute positions inside the buffer
+    private TokenType type;
+    private int indent;
+    private int lineStart, lineEnd;
+    private int keyStart, keyEnd;
+    private int valueStart, valueEnd;
+    private int commentStart, commentEnd;
+    private boolean quoted;
+    private boolean replay;
+
+    /**
+     * Creates a tokenizer that reads through a channel in fixed size chunks, so only one chunk of the file is held in
+     * memory at a time. Lines longer than a chunk will grow the buffer until they fit.
+     * @param channel The channel to read from, which is closed when this tokenizer is closed
+     */
+    public ConfigTokenizer(ReadableByteChannel channel){
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * Creates a tokenizer that reads directly from a buffer holding the whole file, such as a memory-mapped file. The
+     * bytes between the buffer's position and limit are read without being copied onto the heap.
+     * @param buffer The buffer to read from
+     */
+    public ConfigTokenizer(ByteBuffer buffer){
+        this.channel = null;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Advances to the next line that holds a token, skipping any line that doesn't match a known format.
+     * @return True if a line was read, false if the end of the input was reached
+     * @throws IOException If the underlying channel could not be read
+     */
+    public boolean next() throws IOException {
+        if(replay){
+            replay = false;
+            return true;
+        }
+        while(readLine()){
+            if(scanLine()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Makes the next call to {@link #next()} return the current line again. This is used when a parser has looked one
+     * line ahead and found that it belongs to someone else.
+     */
+    public void pushBack(){
+        replay = true;
+    }
+
+    /**
+     * @return The type of the current line
+     */
+    public TokenType type(){
+        return type;
+    }
+
+    /**
+     * The amount of leading whitespace of the current line. Blank lines are always treated as having no indent.
+     * @return The current indent
+     */
+    public int indent(){
+        return indent;
+    }
+
+    /**
+     * @return The key of a section or key-value line, otherwise null
+     */
+    public String key(){
+        if(type!=TokenType.SECTION && type!=TokenType.VALUE) return null;
+        return string(keyStart, keyEnd);
+    }
+
+    /**
+     * The value of a key-value or list line without any inline comment, exactly as it was written, including any quotes
+     * around it.
+     * @return The raw value, otherwise null
+     */
+    public String rawValue(){
+        if(type!=TokenType.VALUE && type!=TokenType.LIST_ITEM) return null;
+        return quoted ? string(valueStart - 1, valueEnd + 1) : string(valueStart, valueEnd);
+    }
+
+    /**
+     * @return The text after the "#" of an inline comment, or null if the line has none
+     */
+    public String inlineComment(){
+        if(commentStart < 0) return null;
+        return string(commentStart, commentEnd);
+    }
+
+    /**
+     * @return The full current line, including its indentation
+     */
+    public String line(){
+        return string(lineStart, lineEnd);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(channel!=null) channel.close();
+    }
+
+    /**
+     * Finds the next line in the buffer, reading more of the channel if the line isn't complete yet.
+     * @return True if a line was found
+     */
+    private boolean readLine() throws IOException {
+        int scanned = 0;  // Bytes after the position that are already known to hold no line break
+        while(true){
+            int limit = buffer.limit();
+            for(int i = buffer.position() + scanned; i < limit; i++){
+                if(buffer.get(i)!='\n') continue;
+                setLine(buffer.position(), i);
+                buffer.position(i + 1);
+                return true;
+            }
+            scanned = limit - buffer.position();
+            if(!fill()){
+                if(!buffer.hasRemaining()) return false;
+                setLine(buffer.position(), buffer.limit());  // Last line without a line break
+                buffer.position(buffer.limit());
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Moves the unread part of the buffer to the front and reads more bytes after it.
+     * @return True if more bytes were read
+     */
+    private boolean fill() throws IOException {
+        if(channel==null || endOfInput){
+            endOfInput = true;
+            return false;
+        }
+        buffer.compact();
+        if(!buffer.hasRemaining()){  // A single line fills the whole buffer
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        int read = channel.read(buffer);
+        buffer.flip();
+        if(read < 0){
+            endOfInput = true;
+            return false;
+        }
+        return true;
+    }
+
+    private void setLine(int start, int end){
+        if(end > start && buffer.get(end - 1)=='\r') end--;
+        // Skip the UTF-8 byte order mark some editors place at the start of a file
+        if(firstLine && end - start >= 3 && (buffer.get(start) & 0xFF)==0xEF && (buffer.get(start + 1) & 0xFF)==0xBB
+                && (buffer.get(start + 2) & 0xFF)==0xBF) start += 3;
+        firstLine = false;
+        lineStart = start;
+        lineEnd = end;
+    }
+
+    /**
+     * Splits the current line into its parts.
+     * @return True if the line is a known token, false if it should be skipped
+     */
+    private boolean scanLine(){
+        keyStart = keyEnd = valueStart = valueEnd = 0;
+        commentStart = commentEnd = -1;
+        quoted = false;
+
+        int start = skipWhitespace(lineStart, lineEnd);
+        int end = trimEnd(start, lineEnd);
+        if(start==end){
+            type = TokenType.BLANK;
+            indent = 0;
+            return true;
+        }
+        indent = start - lineStart;
+
+        byte first = buffer.get(start);
+        if(first=='#'){
+            type = TokenType.COMMENT;
+            return true;
+        }
+        if(first=='-' && end - start > 1 && buffer.get(start + 1)==' '){
+            type = TokenType.LIST_ITEM;
+            scanValue(start + 2, end);
+            return true;
+        }
+
+        int colon = -1;
+        for(int i = start; i < end; i++){
+            if(buffer.get(i)==':'){
+                colon = i;
+                break;
+            }
+        }
+        if(colon==-1) return false;  // Not a key-value pair or a section
+
+        keyStart = start;
+        keyEnd = trimEnd(start, colon);
+        scanValue(colon + 1, end);
+        type = valueStart==valueEnd && !quoted ? TokenType.SECTION : TokenType.VALUE;
+        return true;
+    }
+
+    /**
+     * Finds the value and inline comment between two positions. A comment starts at a "#" that is outside any quotes
+     * and follows whitespace, so values such as hex colors "&#FFFFFF" are kept intact.
+     */
+    private void scanValue(int start, int end){
+        start = skipWhitespace(start, end);
+        int valueEndPos = end;
+        byte first = start < end ? buffer.get(start) : 0;
+        int searchFrom = start;
+        if(first=='"' || first=='\''){
+            for(int i = start + 1; i < end; i++){
+                if(buffer.get(i)==first){
+                    searchFrom = i + 1;
+                    break;
+                }
+            }
+        }
+        for(int i = searchFrom; i < end; i++){
+            if(buffer.get(i)!='#') continue;
+            if(i==start || isWhitespace(buffer.get(i - 1))){
+                valueEndPos = i;
+                commentStart = skipWhitespace(i + 1, end);
+                commentEnd = end;
+                break;
+            }
+        }
+        valueEndPos = trimEnd(start, valueEndPos);
+        if(valueEndPos - start >= 2 && (first=='"' || first=='\'') && buffer.get(valueEndPos - 1)==first){
+            quoted = true;
+            start++;
+            valueEndPos--;
+        }
+        valueStart = start;
+        valueEnd = valueEndPos;
+    }
+
+    private int skipWhitespace(int from, int to){
+        while(from < to && isWhitespace(buffer.get(from))) from++;
+        return from;
+    }
+
+    private int trimEnd(int from, int to){
+        while(to > from && isWhitespace(buffer.get(to - 1))) to--;
+        return to;
+    }
+
+    private static boolean isWhitespace(byte b){
+        return b==' ' || b=='\t' || b=='\r';
+    }
+
+    /**
+     * Decodes a part of the buffer as UTF-8.
+     */
+    private String string(int start, int end){
+        int length = end - start;
+        if(length <= 0) return "";
+        if(buffer.hasArray()) return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        if(scratch==null || scratch.length < length) scratch = new byte[Math.max(length, 64)];
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+}
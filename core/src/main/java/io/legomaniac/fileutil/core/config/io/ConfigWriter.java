@@ -0,0 +1,204 @@
+package io.legomaniac.fileutil.core.config.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Writes a config structure through a fixed size buffer, passing it on to the destination whenever the buffer fills up.
+ * Saving a file only ever holds one buffer of it in memory, no matter how large the file is.
+ * <p>
+ * Indentation, Strings, ints and longs are copied straight into the buffer. Doubles and any other object are first
+ * turned into a String, so writing them still creates garbage.
+ * </p>
+ * <p>
+ * Line breaks are held back until something is written after them, which allows the final line break of a file to be
+ * left out when the writer is finished.
+ * </p>
+ */
+public final class ConfigWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final char[] SPACES = " ".repeat(64).toCharArray();
+
+    private final Appendable sink;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final char[] digits = new char[20];  // Long.MIN_VALUE is the longest number, at 20 characters
+    private int length;
+    private boolean pendingLine;
+
+    /**
+     * Creates a writer passing everything to a destination, such as a {@link Writer} or a {@link StringBuilder}
+     * @param sink The destination of everything written
+     */
+    public ConfigWriter(Appendable sink){
+        this.sink = sink;
+    }
+
+    /**
+     * Writes a single character
+     * @param c The character to write
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public ConfigWriter append(char c) throws IOException {
+        startWrite();
+        if(length==buffer.length) drain();
+        buffer[length++] = c;
+        return this;
+    }
+
+    /**
+     * Writes a String, or "null" if it is null
+     * @param str The String to write
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public ConfigWriter append(String str) throws IOException {
+        if(str==null) str = "null";
+        startWrite();
+        int offset = 0;
+        int remaining = str.length();
+        while(remaining > 0){
+            if(length==buffer.length) drain();
+            int count = Math.min(remaining, buffer.length - length);
+            str.getChars(offset, offset + count, buffer, length);
+            length += count;
+            offset += count;
+            remaining -= count;
+        }
+        return this;
+    }
+
+    /**
+     * Writes an int without creating a String for it
+     * @param value The int to write
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public ConfigWriter append(int value) throws IOException {
+        return append((long) value);
+    }
+
+    /**
+     * Writes a long without creating a String for it
+     * @param value The long to write
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public ConfigWriter append(long value) throws IOException {
+        int pos = digits.length;
+        boolean negative = value < 0;
+        // Works with negative numbers so Long.MIN_VALUE doesn't overflow
+        if(!negative) value = -value;
+        do {
+            digits[--pos] = (char) ('0' - (value % 10));
+            value /= 10;
+        } while(value!=0);
+        if(negative) digits[--pos] = '-';
+        return append(digits, pos, digits.length - pos);
+    }
+
+    /**
+     * Writes a double, using the YAML forms for infinity and NaN so they are read back as numbers. Unlike ints and longs,
+     * the number is formatted through {@link Double#toString(double)}, which creates a String.
+     * @param value The double to write
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public ConfigWriter append(double value) throws IOException {
+        if(Double.isNaN(value)) return append(".nan");
+        if(Double.isInfinite(value)) return append(value > 0 ? ".inf" : "-.inf");
+        return append(Double.toString(value));
+    }
+
+    /**
+     * Writes the indentation at the start of a line
+     * @param indent The amount of spaces to write
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public ConfigWriter indent(int indent) throws IOException {
+        while(indent > 0){
+            int count = Math.min(indent, SPACES.length);
+            append(SPACES, 0, count);
+            indent -= count;
+        }
+        return this;
+    }
+
+    /**
+     * Writes the String form of an object, created through {@link String#valueOf(Object)}
+     * @param value The object to write
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public ConfigWriter append(Object value) throws IOException {
+        return append(String.valueOf(value));
+    }
+
+    private ConfigWriter append(char[] chars, int offset, int count) throws IOException {
+        startWrite();
+        while(count > 0){
+            if(length==buffer.length) drain();
+            int copied = Math.min(count, buffer.length - length);
+            System.arraycopy(chars, offset, buffer, length, copied);
+            length += copied;
+            offset += copied;
+            count -= copied;
+        }
+        return this;
+    }
+
+    /**
+     * Ends the current line. The line break is only written once something follows it.
+     * @return This writer
+     * @throws IOException If the destination could not be written to
+     */
+    public ConfigWriter newLine() throws IOException {
+        startWrite();
+        pendingLine = true;
+        return this;
+    }
+
+    /**
+     * Passes everything written so far, including a held back line break, to the destination.
+     * @throws IOException If the destination could not be written to
+     */
+    public void flush() throws IOException {
+        startWrite();
+        drain();
+    }
+
+    /**
+     * Passes everything written so far to the destination, leaving out a final line break that is still held back.
+     * @throws IOException If the destination could not be written to
+     */
+    public void finish() throws IOException {
+        pendingLine = false;
+        drain();
+    }
+
+    /**
+     * Writes a held back line break before anything else is written
+     */
+    private void startWrite() throws IOException {
+        if(!pendingLine) return;
+        pendingLine = false;
+        if(length==buffer.length) drain();
+        buffer[length++] = '\n';
+    }
+
+    private void drain() throws IOException {
+        if(length==0) return;
+        if(sink instanceof Writer writer){
+            writer.write(buffer, 0, length);
+        } else if(sink instanceof StringBuilder sb){
+            sb.append(buffer, 0, length);
+        } else {
+            sink.append(CharBuffer.wrap(buffer, 0, length));
+        }
+        length = 0;
+    }
+
+}
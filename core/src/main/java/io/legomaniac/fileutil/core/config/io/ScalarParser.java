@@ -0,0 +1,200 @@
+package io.legomaniac.fileutil.core.config.io;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Converts a raw value read from a config file into the object type it represents. Every value is classified with a
+ * single pass over its characters before anything is parsed, so a value that isn't a number never has to fail a parse
+ * attempt first. Most Strings are recognised from their first character alone.
+ * <p>
+ * Besides plain numbers and booleans, values that aren't quoted also understand the YAML forms for hex integers
+ * ("0x1F"), digit separators ("1_000_000"), infinity and NaN (".inf", "-.inf", ".nan") and null ("~", "null").
+ * </p>
+ */
+public final class ScalarParser {
+
+    private static final int NOT_A_NUMBER = 0;
+    private static final int INTEGER = 1;
+    private static final int DECIMAL = 2;
+    private static final int HEX = 3;
+
+    private ScalarParser(){}
+
+    /**
+     * Parses a raw value into a {@link Boolean}, {@link Integer}, {@link Long}, {@link Double}, {@link BigDecimal},
+     * {@link String} or null. Integers are given the smallest of those types that can hold them. A value in quotes is
+     * always a String unless it holds a plain number, and the quotes are removed from it.
+     * @param raw The raw value to parse
+     * @return The converted object, and if no conditions were met will return the original value as a String
+     */
+    public static Object parse(String raw){
+        if(raw==null) return null;
+        raw = raw.strip();
+        int length = raw.length();
+        if(length==0) return raw;
+
+        char first = raw.charAt(0);
+        if(length >= 2 && (first=='"' || first=='\'') && raw.charAt(length - 1)==first){  // Quoted String
+            String value = raw.substring(1, length - 1).strip();
+            Object number = value.isEmpty() ? null : parseNumber(value, false);
+            return number!=null ? number : value;
+        }
+
+        switch(first){
+            case '~', 'n', 'N' -> {
+                if(length==1 ? first=='~' : isNull(raw)) return null;
+                return raw;
+            }
+            case 't', 'T', 'f', 'F' -> {
+                if(raw.equalsIgnoreCase("true") || raw.equalsIgnoreCase("false")) return Boolean.parseBoolean(raw);
+                return raw;
+            }
+            case '.', '+', '-' -> {
+                Double special = parseSpecialDouble(raw);
+                if(special!=null) return special;
+            }
+            default -> {
+                if(!isDigit(first)) return raw;  // Can't be a number, so it is a String
+            }
+        }
+        Object number = parseNumber(raw, true);
+        return number!=null ? number : raw;
+    }
+
+    private static boolean isNull(String value){
+        return value.equals("null") || value.equals("Null") || value.equals("NULL");
+    }
+
+    /**
+     * Parses the YAML forms of infinity and NaN
+     * @param value The value to check
+     * @return The double value, or null if the value isn't one of those forms
+     */
+    private static Double parseSpecialDouble(String value){
+        int start = value.charAt(0)=='.' ? 0 : 1;
+        if(value.length() - start!=4 || value.charAt(start)!='.') return null;
+        String word = value.substring(start + 1);
+        if(word.equals("inf") || word.equals("Inf") || word.equals("INF")){
+            return value.charAt(0)=='-' ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        if(start==0 && (word.equals("nan") || word.equals("NaN") || word.equals("NAN"))) return Double.NaN;
+        return null;
+    }
+
+    /**
+     * Parses a number if the value is written as one.
+     * @param value The value to parse
+     * @param yamlForms Whether hex integers and "_" separators are allowed
+     * @return An {@link Integer}, {@link Long} or {@link BigDecimal}, or null if the value isn't a number
+     */
+    private static Object parseNumber(String value, boolean yamlForms){
+        int kind = classify(value, yamlForms);
+        if(kind==NOT_A_NUMBER) return null;
+        if(yamlForms && value.indexOf('_')!=-1) value = value.replace("_", "");
+        if(kind==DECIMAL) return new BigDecimal(value);
+        if(kind==HEX) return parseHex(value);
+        int digits = value.length() - (isSign(value.charAt(0)) ? 1 : 0);
+        if(digits <= 18) return narrow(Long.parseLong(value));  // Always fits inside a long
+        return narrow(new BigInteger(value));
+    }
+
+    private static Object parseHex(String value){
+        boolean negative = value.charAt(0)=='-';
+        int start = isSign(value.charAt(0)) ? 3 : 2;  // Skips the sign and "0x"
+        String digits = value.substring(start);
+        if(digits.length() <= 15){  // Always fits inside a long
+            long l = Long.parseLong(digits, 16);
+            return narrow(negative ? -l : l);
+        }
+        BigInteger big = new BigInteger(digits, 16);
+        return narrow(negative ? big.negate() : big);
+    }
+
+    /**
+     * @return An Integer if the value fits inside one, otherwise a Long
+     */
+    private static Object narrow(long l){
+        if(l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) return (int) l;
+        return l;
+    }
+
+    /**
+     * @return An Integer or Long if the value fits inside one, otherwise a BigDecimal
+     */
+    private static Object narrow(BigInteger big){
+        if(big.bitLength() < 64) return narrow(big.longValue());
+        return new BigDecimal(big);
+    }
+
+    /**
+     * Checks the characters of a value to find whether it is an integer, a decimal, a hex integer or not a number at
+     * all. A decimal has a "." or an exponent, such as "1.5", ".5" or "1e10".
+     */
+    private static int classify(String value, boolean yamlForms){
+        int length = value.length();
+        int i = 0;
+        if(length > 0 && isSign(value.charAt(0))) i++;
+
+        if(yamlForms && length - i > 2 && value.charAt(i)=='0' && (value.charAt(i + 1)=='x' || value.charAt(i + 1)=='X')){
+            i += 2;
+            if(!isHexDigit(value.charAt(i))) return NOT_A_NUMBER;
+            for(; i < length; i++){
+                char c = value.charAt(i);
+                if(!isHexDigit(c) && c!='_') return NOT_A_NUMBER;
+            }
+            return HEX;
+        }
+
+        int digits = 0;
+        boolean decimal = false;
+        for(; i < length; i++){
+            char c = value.charAt(i);
+            if(isDigit(c)){
+                digits++;
+            } else if(c!='_' || !yamlForms || digits==0){
+                break;
+            }
+        }
+        if(i < length && value.charAt(i)=='.'){
+            decimal = true;
+            i++;
+            for(; i < length; i++){
+                char c = value.charAt(i);
+                if(isDigit(c)){
+                    digits++;
+                } else if(c!='_' || !yamlForms){
+                    break;
+                }
+            }
+        }
+        if(digits==0) return NOT_A_NUMBER;
+        if(i < length && (value.charAt(i)=='e' || value.charAt(i)=='E')){
+            decimal = true;
+            i++;
+            if(i < length && isSign(value.charAt(i))) i++;
+            int exponentDigits = 0;
+            while(i < length && isDigit(value.charAt(i))){
+                i++;
+                exponentDigits++;
+            }
+            // An exponent that doesn't fit an int can't be held by a BigDecimal
+            if(exponentDigits==0 || exponentDigits > 9) return NOT_A_NUMBER;
+        }
+        if(i!=length) return NOT_A_NUMBER;
+        return decimal ? DECIMAL : INTEGER;
+    }
+
+    private static boolean isSign(char c){
+        return c=='+' || c=='-';
+    }
+
+    private static boolean isDigit(char c){
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c){
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+}
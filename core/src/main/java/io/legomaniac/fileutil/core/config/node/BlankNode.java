@@ -1,5 +1,9 @@
 package io.legomaniac.fileutil.core.config.node;
 
+import io.legomaniac.fileutil.core.config.io.ConfigWriter;
+
+import java.io.IOException;
+
 /**
  * This is a Node representing a blank line, or "\n" in bytes. This allows separation of sections, while allowing blank
  * lines to persist between saves
@@ -19,8 +23,8 @@ public final class BlankNode implements ConfigNode {
     }
 
     @Override
-    public void write(StringBuilder out, int indent){
-        if(out!=null) out.append("\n");
+    public void write(ConfigWriter out, int indent) throws IOException {
+        out.newLine();
     }
 
 }
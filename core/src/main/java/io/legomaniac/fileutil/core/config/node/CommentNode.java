@@ -1,5 +1,9 @@
 package io.legomaniac.fileutil.core.config.node;
 
+import io.legomaniac.fileutil.core.config.io.ConfigWriter;
+
+import java.io.IOException;
+
 /**
  * This represents a node that contains a comment String, which YAML loaders will recognize as a comment, and not treat
  * anything past the "#" as value objects. This should only be a single line, as anything more will break the parser
@@ -32,13 +36,21 @@ public final class CommentNode implements ConfigNode {
     }
 
     @Override
-    public void write(StringBuilder out, int indent){
-        if(out==null) return;
-        if(!comment.strip().startsWith("#")){
-            out.append(" ".repeat(indent)).append("# ").append(comment).append("\n");
-        } else {
-            out.append(" ".repeat(indent)).append(comment).append("\n");
+    public void write(ConfigWriter out, int indent) throws IOException {
+        out.indent(indent);
+        if(!startsWithHash()) out.append("# ");
+        out.append(comment).newLine();
+    }
+
+    /**
+     * Checks if the comment already starts with a "#", ignoring any whitespace before it
+     */
+    private boolean startsWithHash(){
+        for(int i = 0; i < comment.length(); i++){
+            char c = comment.charAt(i);
+            if(!Character.isWhitespace(c)) return c=='#';
         }
+        return false;
     }
 
 }
@@ -1,5 +1,10 @@
 package io.legomaniac.fileutil.core.config.node;
 
+import io.legomaniac.fileutil.core.config.io.ConfigWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * This represents a ConfigNode that is inherited by any node in the config structure. Every node should have a path and
  * key variable saved, as it allows the parser to correctly identify what section and placement it should have. This
@@ -10,10 +15,27 @@ public interface ConfigNode {
 
     /**
      * Writes this Node to the config file that this belongs to
+     * @param out The writer passing everything on to the file
+     * @param indent How many indents are placed before the key pair. Must be divisible by 2 to ensure proper parsing
+     * @throws IOException If the file could not be written to
+     */
+    void write(ConfigWriter out, int indent) throws IOException;
+
+    /**
+     * Writes this Node into a buffer, in the same format it would be written to the config file
      * @param out The buffer containing all the information to write to disk
      * @param indent How many indents are placed before the key pair. Must be divisible by 2 to ensure proper parsing
      */
-    void write(StringBuilder out, int indent);
+    default void write(StringBuilder out, int indent){
+        if(out==null) return;
+        try {
+            ConfigWriter writer = new ConfigWriter(out);
+            write(writer, indent);
+            writer.flush();
+        } catch (IOException ex){  // A StringBuilder never throws
+            throw new UncheckedIOException(ex);
+        }
+    }
 
     /**
      * This represents the dot separated path for this node. If there is no "." in this, then that implies that this node
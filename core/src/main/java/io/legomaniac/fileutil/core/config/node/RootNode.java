@@ -1,12 +1,17 @@
 package io.legomaniac.fileutil.core.config.node;
 
+import io.legomaniac.fileutil.core.config.io.ConfigWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
  * This node represents the "Root" directory of any {@link io.legomaniac.fileutil.core.config.ConfigFile}. This allows
  * sorting and positioning inside the file is correct.
  */
 public final class RootNode extends SectionNode {
 
-    private int lastIndex = 0;
+    private volatile int lastIndex = 0;
 
     public RootNode(){
         super(0, null, null);
@@ -20,27 +25,70 @@ public final class RootNode extends SectionNode {
         return lastIndex;
     }
 
+    /**
+     * Creates an unchangeable copy of the whole config structure. See {@link SectionNode#snapshot()}.
+     * @return The snapshot of the root directory
+     */
     @Override
-    public SectionNode add(ConfigNode node){
-        if(node==null) return this;
-        int childIndex = !children.isEmpty() ? children.size() : 0;
+    public RootNode snapshot(){
+        return (RootNode) super.snapshot();
+    }
 
-        node.setIndex(childIndex);
+    /**
+     * Creates a changeable copy of the whole config structure. See {@link SectionNode#deepCopy()}.
+     * @return The copy of the root directory
+     */
+    @Override
+    public RootNode deepCopy(){
+        return (RootNode) super.deepCopy();
+    }
+
+    @Override
+    protected SectionNode emptyCopy(){
+        RootNode copy = new RootNode();
+        copy.lastIndex = lastIndex;
+        return copy;
+    }
 
-        children.add(node);
+    @Override
+    public SectionNode add(ConfigNode node){
+        if(node==null) return this;
+        super.add(node);
         lastIndex++;
         return this;
     }
 
+    @Override
+    public SectionNode add(ConfigNode node, int index){
+        if(node==null) return this;
+        int size = children.size();
+        super.add(node, index);
+        if(children.size() > size) lastIndex++;
+        return this;
+    }
+
     /**
      * Saves the root directory and all of its nodes to the config file, starting at an indent of 0, as that is the root
      * path.
      * @param out The buffer to write to
      */
     public void saveRoot(StringBuilder out){
+        try {
+            saveRoot(new ConfigWriter(out));
+        } catch (IOException ex){  // A StringBuilder never throws
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Streams the root directory and all of its nodes to the config file, starting at an indent of 0, as that is the root
+     * path. The ending new line is left out.
+     * @param out The writer to write to
+     * @throws IOException If the file could not be written to
+     */
+    public void saveRoot(ConfigWriter out) throws IOException {
         write(out, 0);
-        if(out.isEmpty()) return;
-        out.replace(out.lastIndexOf("\n"), out.length(), ""); // Removes the ending new line
+        out.finish();
     }
 
 }
@@ -1,15 +1,22 @@
 package io.legomaniac.fileutil.core.config.node;
 
 import io.legomaniac.fileutil.core.LMFileUtil;
+import io.legomaniac.fileutil.core.config.ConfigPath;
+import io.legomaniac.fileutil.core.config.io.ConfigWriter;
 import io.legomaniac.fileutil.core.config.node.section.ListSectionNode;
 import io.legomaniac.fileutil.core.util.MessageUtil;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * This is a node that will contain other nodes along its path. Should there be no nodes inside, the section should be
@@ -17,10 +24,18 @@ import java.util.Locale;
  */
 public class SectionNode implements ConfigNode {
 
+    private static final AtomicLongFieldUpdater<SectionNode> MOD_COUNT = AtomicLongFieldUpdater.newUpdater(SectionNode.class, "modCount");
+
     protected final String path;
     protected final String key;
-    protected final List<ConfigNode> children = new ArrayList<>();
+    protected volatile List<ConfigNode> children = new ArrayList<>(); // In index order, unless an index was set directly
+    protected final Map<String, ConfigNode> keyIndex = new ConcurrentHashMap<>(); // Key -> node lookup for the children list
     protected int sectionIndex;
+    protected SectionNode parent; // The section this one was added to, null for the root or a detached section
+    private volatile long modCount; // Incremented whenever this section or anything below it changes
+    private volatile boolean concurrent; // Whether the children are kept in a copy-on-write list
+    private boolean frozen; // Set on the copies that make up a snapshot, which can never be changed
+    private volatile Snapshot snapshot; // The latest snapshot of this section, reused until this section changes
 
     public SectionNode(int sectionIndex, String path, String key){
         this.sectionIndex = sectionIndex;
@@ -46,6 +61,30 @@ public class SectionNode implements ConfigNode {
         return children;
     }
 
+    /**
+     * Sets whether this section and every section below it can be read safely while another thread changes them. A
+     * concurrent section keeps its children in a copy-on-write list, so reading and iterating never block and never see a
+     * partly changed list, while every change copies the list. Sections added to a concurrent section become concurrent
+     * as well. Changes should still be made from one thread at a time, such as through {@link
+     * io.legomaniac.fileutil.core.config.ConfigFile#edit(java.util.function.Consumer)}.
+     * @param concurrent True to make the sections safe to read from any thread
+     */
+    public final void setConcurrent(boolean concurrent){
+        if(frozen) return;  // Snapshots never change, so they can already be read from any thread
+        if(this.concurrent!=concurrent){
+            this.children = concurrent ? new CopyOnWriteArrayList<>(children) : new ArrayList<>(children);
+            this.concurrent = concurrent;
+        }
+        for(ConfigNode cn : children) if(cn instanceof SectionNode sn) sn.setConcurrent(concurrent);
+    }
+
+    /**
+     * @return True if this section can be read safely while another thread changes it
+     */
+    public final boolean isConcurrent(){
+        return concurrent;
+    }
+
     /**
      * This will retrieve only the {@link ValueNode}s inside of this Node.
      * @return Null if there are no children or a list of all ValueNodes found inside this Section
@@ -65,28 +104,48 @@ public class SectionNode implements ConfigNode {
 
     @Override
     public void setIndex(int sectionIndex){
+        checkMutable();
+        if(this.sectionIndex==sectionIndex) return;
         this.sectionIndex = sectionIndex;
+        snapshot = null;  // The cached copy still holds the old index, which the parent's snapshot is sorted by
+        if(parent!=null) parent.touch();  // The parent's order changes, so it has to be written again
     }
 
     /**
      * Clears all the current entries inside of this SectionNode
      */
-    public final void clear(){
-        if(!this.children.isEmpty()) this.children.clear();
+    public void clear(){
+        checkMutable();
+        if(this.children.isEmpty()) return;
+        this.children.clear();
+        keyIndex.clear();
+        touch();
     }
 
     /**
      * Sorts every node in the current section by their index in ascending order, then recursively checks every subsection.
+     * Nodes added through this section are already in order, so this is only needed after changing the index of a node
+     * with {@link ConfigNode#setIndex(int)}. A section that is already in order is left untouched.
      */
     public final void sort(){
         if(this.children.isEmpty()) return;
-        children.sort(Comparator.comparingInt(ConfigNode::getIndex));
+        if(!isSorted()){
+            children.sort(Comparator.comparingInt(ConfigNode::getIndex));
+            touch();
+        }
         children.forEach(cn -> {
             if(!(cn instanceof SectionNode sn) || sn instanceof ListSectionNode) return;
             sn.sort();
         });
     }
 
+    private boolean isSorted(){
+        for(int i = 1; i < children.size(); i++){
+            if(children.get(i - 1).getIndex() > children.get(i).getIndex()) return false;
+        }
+        return true;
+    }
+
     /**
      * Adds a new node to this Section. If the node is not null, the next index is first calculated before insertion.
      * @param node The node to insert
@@ -94,51 +153,211 @@ public class SectionNode implements ConfigNode {
      */
     public SectionNode add(ConfigNode node){
         if(node==null) return this;
+        checkMutable();
         int childIndex = 0;
         if(!children.isEmpty()) childIndex = children.size();
         node.setIndex(childIndex);
         children.add(node);
+        childAdded(node);
         return this;
     }
 
     /**
      * Adds a new node to this Section at the position provided. If there are nodes at or after this index, those nodes
-     * will be pushed forward in the list before inserting the new node.
+     * will be pushed forward in the list before inserting the new node. Inserting takes linear time, as every following
+     * node is moved and renumbered, but the section is only marked as modified once.
      * @param node The node to insert
      * @param index The index for which to place this node
      * @return This section, allowing chain-adding nodes in a single line.
      */
     public SectionNode add(ConfigNode node, int index){
         if(node==null) return this;
+        checkMutable();
+
+        // In bounds
+        if(index > children.size() || index < 0) return this;
+
         node.setIndex(index);
+        children.add(index, node); // Shifts the following nodes over in a single copy
+        for(int i = index + 1; i < children.size(); i++) renumber(children.get(i), i);
+        childAdded(node);  // Marks this section as modified once, covering every node that moved
+        return this;
+    }
 
-        if(children.isEmpty()){
-            if(index!=0) return this;
-            children.add(index, node);
-            return this;
+    /**
+     * Changes the index of a child without marking this section as modified, for changes that mark it once they are done
+     * @param node The child to renumber
+     * @param index The new index of the child
+     */
+    private static void renumber(ConfigNode node, int index){
+        if(node instanceof SectionNode sn){
+            if(sn.sectionIndex==index) return;
+            sn.sectionIndex = index;
+            sn.snapshot = null;  // The cached copy still holds the old index
+        } else if(node instanceof ValueNode vn){
+            vn.index = index;
+        } else {
+            node.setIndex(index);
         }
+    }
 
-        // In bounds
-        if(index > children.size() || index < 0) return this;
+    /**
+     * Registers a newly added child. Its key is indexed, so it can be found without scanning the children, with the first
+     * node added under a key keeping the entry, matching the order the nodes are written in. The child is then linked to
+     * this section so any change to it is tracked, and this section is marked as modified.
+     * @param node The node that was added
+     */
+    protected final void childAdded(ConfigNode node){
+        String nodeKey = node.getKey();
+        if(nodeKey!=null) keyIndex.putIfAbsent(nodeKey, node);
+        if(node instanceof SectionNode sn){
+            sn.parent = this;
+            if(concurrent && !sn.concurrent) sn.setConcurrent(true);
+        } else if(node instanceof ValueNode vn){
+            vn.parent = this;
+        }
+        touch();
+    }
 
-        for(int i = 0; i < children.size(); i++){
-            if(i < index) continue;
-            ConfigNode configNode = children.get(i);
-            configNode.setIndex((i+1));
-            children.add((i+1), configNode);
+    /**
+     * Marks this section and every section above it as modified.
+     */
+    protected final void touch(){
+        for(SectionNode section = this; section!=null; section = section.parent) MOD_COUNT.incrementAndGet(section);
+    }
+
+    /**
+     * The modification count of this section, which changes whenever a node is added to or removed from this section or
+     * any section below it, or when the value of one of those nodes is changed. Comparing two counts shows whether
+     * anything has changed in between. Changes made directly to the list from {@link #getChildren()} are not counted.
+     * @return The current modification count
+     */
+    public final long getModCount(){
+        return modCount;
+    }
+
+    /**
+     * Creates an unchangeable copy of this section and everything below it, which keeps the state this section is in
+     * now, no matter how the section is changed afterwards. The copy is reused until this section changes, and a changed
+     * section only copies its own children again, while sharing the copies of every section below it that hasn't changed.
+     * Taking a snapshot of an unchanged section costs nothing, and a single change only copies the sections along its
+     * path.
+     * <p>
+     * Changing a snapshot, or any node inside it, throws an {@link UnsupportedOperationException}. The section should not
+     * be changed by another thread while the snapshot is taken.
+     * </p>
+     * @return The snapshot of this section
+     */
+    public SectionNode snapshot(){
+        if(frozen) return this;
+        long modCount = this.modCount;  // Read first, so anything changed while copying makes the snapshot out of date
+        Snapshot cached = snapshot;
+        if(cached!=null && cached.modCount()==modCount) return cached.section();
+
+        SectionNode copy = emptyCopy();
+        copyChildren(copy, true);
+        copy.modCount = modCount;
+        copy.frozen = true;
+        snapshot = new Snapshot(modCount, copy);
+        return copy;
+    }
+
+    /**
+     * Creates a changeable copy of this section and everything below it, which shares no nodes with this section. The
+     * copy starts at the same modification count as this section, and counts up from there. A copy of a snapshot can be
+     * changed again.
+     * @return The copy of this section
+     */
+    public SectionNode deepCopy(){
+        long modCount = this.modCount;
+        SectionNode copy = emptyCopy();
+        copyChildren(copy, false);
+        copy.modCount = modCount;
+        return copy;
+    }
+
+    /**
+     * Copies every child of this section into a copy of it
+     * @param copy The copy of this section, without any children yet
+     * @param frozen True if the copy is a snapshot, which shares the snapshots of the sections below it
+     */
+    private void copyChildren(SectionNode copy, boolean frozen){
+        List<ConfigNode> children = this.children;
+        List<ConfigNode> copied = new ArrayList<>(children.size());
+        for(ConfigNode cn : children){
+            ConfigNode child = copyOf(cn, copy, frozen);
+            copied.add(child);
+            String childKey = child.getKey();
+            if(childKey!=null) copy.keyIndex.putIfAbsent(childKey, child);
+            if(!frozen && child instanceof SectionNode sn) sn.parent = copy;  // Snapshots are shared, so never linked
         }
-        children.add(index, node);
-        return this;
+        if(frozen) copied.sort(Comparator.comparingInt(ConfigNode::getIndex));  // Snapshots can't be sorted once written
+        copy.children = frozen ? Collections.unmodifiableList(copied) : copied;
     }
 
     /**
-     * Checks the current section for a key.
-     * @param key The key to search for
-     * @return True if the key was found, false if it's not present in the current "level"
+     * Creates a copy of a child for a copy of this section
+     * @param node The child to copy
+     * @param parent The copy the child belongs to
+     * @param frozen True if the copy is a snapshot
+     * @return The copied child
+     */
+    private static ConfigNode copyOf(ConfigNode node, SectionNode parent, boolean frozen){
+        if(node instanceof SectionNode sn) return frozen ? sn.snapshot() : sn.deepCopy();
+        if(node instanceof ValueNode vn) return vn.copy(parent, frozen);
+        if(node instanceof CommentNode comm){
+            CommentNode copy = new CommentNode(comm.getComment());
+            copy.setIndex(comm.getIndex());
+            return copy;
+        }
+        if(node instanceof BlankNode){
+            BlankNode copy = new BlankNode();
+            copy.setIndex(node.getIndex());
+            return copy;
+        }
+        return node;
+    }
+
+    /**
+     * Creates the copy of this section that a snapshot or deep copy starts from, holding everything except its children. Subclasses
+     * holding more than their children should copy that as well.
+     * @return A new section with the same path, key and index as this one
+     */
+    protected SectionNode emptyCopy(){
+        return new SectionNode(sectionIndex, path, key);
+    }
+
+    /**
+     * @return True if this section is part of a snapshot, and can't be changed
+     */
+    public final boolean isFrozen(){
+        return frozen;
+    }
+
+    /**
+     * Stops a change to a section that is part of a snapshot
+     * @throws UnsupportedOperationException If this section is part of a snapshot
+     */
+    protected final void checkMutable(){
+        if(frozen) throw new UnsupportedOperationException("A config snapshot cannot be changed");
+    }
+
+    /**
+     * Raises the modification count of this section above a value, if it isn't already. This is used when a copy replaces
+     * the section it was copied from, so counts taken from the old section never match or pass the copy's count.
+     * @param floor The count this section's count has to be above
+     */
+    public final void raiseModCount(long floor){
+        MOD_COUNT.accumulateAndGet(this, floor + 1, Math::max);
+    }
+
+    /**
+     * Checks the current section for a key, which may be a dot separated path into lower sections.
+     * @param key The key or path to search for
+     * @return True if a node was found, false if not
      */
     public boolean hasChild(String key){
-        if(children.isEmpty()) return false;
-        return children.stream().anyMatch(cn -> cn.getKey()!=null && cn.getKey().equals(key));
+        return getChild(key)!=null;
     }
 
     /**
@@ -149,18 +368,10 @@ public class SectionNode implements ConfigNode {
      */
     public SectionNode getSection(String key){
         if(key==null || key.isEmpty() || this.children.isEmpty()) return null;
-        String[] parts = key.split("\\.");
-        for(ConfigNode cn : children){
-            if(!(cn instanceof SectionNode sn)) continue;
-            String parentNode = parts[0];
-            if(parts.length==1){
-                if(sn.getKey().equals(parentNode)) return sn;
-            } else {
-                if(!sn.getKey().equals(parentNode)) continue;
-                return sn.getSection(removeParent(key));
-            }
-        }
-        return null;
+        int dot = key.indexOf('.');
+        if(dot==-1) return keyIndex.get(key) instanceof SectionNode sn ? sn : null;
+        if(!(keyIndex.get(key.substring(0, dot)) instanceof SectionNode sn)) return null;
+        return sn.getSection(key.substring(dot + 1));
     }
 
     /**
@@ -170,13 +381,7 @@ public class SectionNode implements ConfigNode {
      */
     public ListSectionNode getListSection(String key){
         if(key==null || key.isEmpty() || this.children.isEmpty()) return null;
-        String[] parts = key.split("\\.");
-        for(ConfigNode cn : children){
-            if(!(cn instanceof ListSectionNode ln)) continue;
-            String parentNode = parts[0];
-            if(parts.length==1 && ln.getKey().equals(parentNode)) return ln;
-        }
-        return null;
+        return keyIndex.get(key) instanceof ListSectionNode ln ? ln : null;
     }
 
     /**
@@ -188,24 +393,57 @@ public class SectionNode implements ConfigNode {
      */
     public ConfigNode getChild(String key){
         if(key==null || this.children.isEmpty()) return null;
-        String[] parts = key.split("\\.");
-        if(parts.length==1){
-            // This is the final SectionNode, search based off the child's key
-            return children.stream()
-                    .filter(cn -> cn.getKey() != null && cn.getKey().equals(key))
-                    .findFirst()
-                    .orElse(null);
-        } else {  // The child is in a sub-SectionNode, retrieve recursively
-            // This is the parent node to look for
-            String parentNode = parts[0];
-            for(ConfigNode cn : children){
-                // If the node isn't a SectionNode or the key doesn't match, continue on
-                if(!(cn instanceof SectionNode sn) || !sn.getKey().equals(parentNode)) continue;
-                // The next parent node was found
-                return sn.getChild(removeParent(key));
-            }
+        int dot = key.indexOf('.');
+        // This is the final SectionNode, search based off the child's key
+        if(dot==-1) return keyIndex.get(key);
+        // The child is in a sub-SectionNode, retrieve recursively
+        if(!(keyIndex.get(key.substring(0, dot)) instanceof SectionNode sn)) return null;
+        return sn.getChild(key.substring(dot + 1));
+    }
+
+    /**
+     * Retrieves a child of this section by its exact key. Unlike {@link #getChild(String)}, a "." in the key is not treated
+     * as a path, and lower sections are never searched.
+     * @param key The key of the child
+     * @return A node object if found, null otherwise
+     */
+    public ConfigNode getDirectChild(String key){
+        if(key==null) return null;
+        return keyIndex.get(key);
+    }
+
+    /**
+     * Retrieve a child node using a pre-parsed path, walking one section per key without splitting any Strings.
+     * @param path The path of the node, relative to this section
+     * @return A node object if found, null otherwise
+     */
+    public ConfigNode getChild(ConfigPath path){
+        if(path==null || this.children.isEmpty()) return null;
+        SectionNode current = this;
+        int last = path.length() - 1;
+        for(int i = 0; i < last; i++){
+            if(!(current.keyIndex.get(path.segment(i)) instanceof SectionNode sn)) return null;
+            current = sn;
         }
-        return null;
+        return current.keyIndex.get(path.segment(last));
+    }
+
+    /**
+     * Retrieves a nested SectionNode using a pre-parsed path
+     * @param path The path of the section, relative to this section
+     * @return The section node if found, null otherwise
+     */
+    public SectionNode getSection(ConfigPath path){
+        return getChild(path) instanceof SectionNode sn ? sn : null;
+    }
+
+    /**
+     * Checks if a node exists along a pre-parsed path
+     * @param path The path to search for, relative to this section
+     * @return True if a node was found, false if not
+     */
+    public boolean hasChild(ConfigPath path){
+        return getChild(path)!=null;
     }
 
     /**
@@ -216,18 +454,22 @@ public class SectionNode implements ConfigNode {
      * @return The node if found, null if not
      */
     public CommentNode getComment(String string, int index){
-        if(this.children.isEmpty() || string==null || string.isEmpty()) return null;
-        for(ConfigNode cn : children){
-            if(!(cn instanceof CommentNode comm) || comm.getComment()==null || !comm.getComment().equals(string)) continue;
-            if(comm.getIndex()==index) return comm;
-        }
+        List<ConfigNode> children = this.children;
+        if(string==null || string.isEmpty() || index < 0 || index >= children.size()) return null;
+        // Children are kept in index order, so the only candidate is the node at that position
+        if(children.get(index) instanceof CommentNode comm && string.equals(comm.getComment())) return comm;
         return null;
     }
 
+    /**
+     * Retrieves a blank line node at an index in the current section only.
+     * @param index The index to check against
+     * @return The node if found, null if not
+     */
     public BlankNode getBlankNode(int index){
-        if(this.children.isEmpty() || index < this.children.size() || index > this.children.size()) return null;
-        for(ConfigNode cn : children) if(cn instanceof BlankNode bn && bn.getIndex()==index) return bn;
-        return null;
+        List<ConfigNode> children = this.children;
+        if(index < 0 || index >= children.size()) return null;
+        return children.get(index) instanceof BlankNode bn ? bn : null;
     }
 
     /**
@@ -248,16 +490,17 @@ public class SectionNode implements ConfigNode {
      * @return The value belonging to the key if found
      */
     public final <T> @Nullable T getValue(String key, Class<T> classOfT){
-        if(!hasChild(key)) return null;
-        ConfigNode node = getChild(key);
-        if(!(node instanceof ValueNode vn) || vn.getValue()==null) return null;
-        Object value = vn.getValue();
-        if(value==null || !classOfT.isAssignableFrom(value.getClass())){
-            LMFileUtil fu = LMFileUtil.getInst();
-            MessageUtil mu = fu.getMessageUtil();
-            mu.console(fu.getPluginName(), "&cUnable to get value for " + path + " with type: " + classOfT);
-        }
-        return value==null ? null : classOfT.cast(value);
+        return castValue(resolveValue(key), classOfT);
+    }
+
+    /**
+     * Retrieves a value from this section AS-IS using a pre-parsed path
+     * @param path The path to search for, relative to this section
+     * @param classOfT The class type that should be cast to
+     * @return The value belonging to the path if found
+     */
+    public final <T> @Nullable T getValue(ConfigPath path, Class<T> classOfT){
+        return castValue(resolveValue(path), classOfT);
     }
 
     /**
@@ -266,16 +509,16 @@ public class SectionNode implements ConfigNode {
      * @return A BigDecimal object if found, null otherwise
      */
     public BigDecimal getAsDecimal(String key){
-        if(!hasChild(key)) return null;
-        ConfigNode node = getChild(key);
-        if(!(node instanceof ValueNode vn) || vn.getValue()==null) return null;
-        Object value = vn.getValue();
-        if(value instanceof BigDecimal dec) return dec;
-        try {
-            return new BigDecimal(String.valueOf(vn.getValue()));
-        } catch (Exception ex){
-            return null;
-        }
+        return toDecimal(resolveValue(key));
+    }
+
+    /**
+     * Used to retrieve a BigDecimal value from a pre-parsed path
+     * @param path The path to search for, relative to this section
+     * @return A BigDecimal object if found, null otherwise
+     */
+    public BigDecimal getAsDecimal(ConfigPath path){
+        return toDecimal(resolveValue(path));
     }
 
     /**
@@ -284,16 +527,16 @@ public class SectionNode implements ConfigNode {
      * @return Null if not present or the value is invalid, True or false if found
      */
     public Boolean getBoolean(String key){
-        if(!hasChild(key)) return null;
-        ConfigNode node = getChild(key);
-        if(!(node instanceof ValueNode vn) || vn.getValue()==null) return null;
-        Object value = vn.getValue();
-        if(value instanceof Boolean b) return b;
-        try {
-            return Boolean.parseBoolean(String.valueOf(vn.getValue()));
-        } catch (Exception ex){
-            return false;
-        }
+        return toBoolean(resolveValue(key));
+    }
+
+    /**
+     * Retrieves a boolean value from a pre-parsed path
+     * @param path The path to search for, relative to this section
+     * @return Null if not present or the value is invalid, True or false if found
+     */
+    public Boolean getBoolean(ConfigPath path){
+        return toBoolean(resolveValue(path));
     }
 
     /**
@@ -302,16 +545,16 @@ public class SectionNode implements ConfigNode {
      * @return A double if found, null otherwise
      */
     public Double getDouble(String key){
-        if(!hasChild(key)) return null;
-        ConfigNode node = getChild(key);
-        if(!(node instanceof ValueNode vn) || vn.getValue()==null) return null;
-        Object value = vn.getValue();
-        if(value instanceof Double d) return d;
-        try {
-            return Double.parseDouble(String.valueOf(vn.getValue()));
-        } catch (Exception ex){
-            return 0.0;
-        }
+        return toDouble(resolveValue(key));
+    }
+
+    /**
+     * Retrieves a double value from a pre-parsed path
+     * @param path The path to search for, relative to this section
+     * @return A double if found, null otherwise
+     */
+    public Double getDouble(ConfigPath path){
+        return toDouble(resolveValue(path));
     }
 
     /**
@@ -320,19 +563,18 @@ public class SectionNode implements ConfigNode {
      * @param enumClass The class type of the Enum
      * @return an Enum type if found, otherwise will return null
      */
-    @SuppressWarnings("unchecked")
     public <T extends Enum<T>> T getEnum(String key, Class<T> enumClass) {
-        if(!hasChild(key)) return null;
-        ConfigNode node = getChild(key);
-        if(!(node instanceof ValueNode vn) || vn.getValue()==null) return null;
-        Object value = vn.getValue();
-        if(value instanceof Enum e) return (T)e;
-        if(value instanceof String s){
-            try {
-                return Enum.valueOf(enumClass, s.trim().toUpperCase(Locale.ROOT));
-            } catch (IllegalArgumentException ignored){}
-        }
-        return null;
+        return toEnum(resolveValue(key), enumClass);
+    }
+
+    /**
+     * Retrieves an Enum type from a pre-parsed path
+     * @param path The path to search for, relative to this section
+     * @param enumClass The class type of the Enum
+     * @return an Enum type if found, otherwise will return null
+     */
+    public <T extends Enum<T>> T getEnum(ConfigPath path, Class<T> enumClass){
+        return toEnum(resolveValue(path), enumClass);
     }
 
     /**
@@ -341,9 +583,215 @@ public class SectionNode implements ConfigNode {
      * @return an integer if found, null otherwise
      */
     public Integer getInt(String key){
-        if(!hasChild(key)) return null;
-        ConfigNode node = getChild(key);
-        if(!(node instanceof ValueNode vn) || vn.getValue()==null) return null;
+        return toInt(resolveValue(key));
+    }
+
+    /**
+     * Retrieves an integer from a pre-parsed path
+     * @param path The path to search for, relative to this section
+     * @return an integer if found, null otherwise
+     */
+    public Integer getInt(ConfigPath path){
+        return toInt(resolveValue(path));
+    }
+
+    /**
+     * Retrieves a long from a key-pair
+     * @param key the key to search for
+     * @return a long value if found, null otherwise
+     */
+    public Long getLong(String key){
+        return toLong(resolveValue(key));
+    }
+
+    /**
+     * Retrieves a long from a pre-parsed path
+     * @param path The path to search for, relative to this section
+     * @return a long value if found, null otherwise
+     */
+    public Long getLong(ConfigPath path){
+        return toLong(resolveValue(path));
+    }
+
+    /**
+     * Retrieves a String from a key-pair. String.strip() will be needed to remove any trailing or leading space.
+     * @param key the key to search for
+     * @return A string if found, null otherwise.
+     */
+    public String getString(String key){
+        return toStringValue(resolveValue(key));
+    }
+
+    /**
+     * Retrieves a String from a pre-parsed path. String.strip() will be needed to remove any trailing or leading space.
+     * @param path The path to search for, relative to this section
+     * @return A string if found, null otherwise.
+     */
+    public String getString(ConfigPath path){
+        return toStringValue(resolveValue(path));
+    }
+
+    // Primitive getters, which never box and reuse the conversion stored in the node
+
+    /**
+     * Retrieves an int from a key-pair without boxing it
+     * @param key The key to search for
+     * @param def The value to return if the key wasn't found or its value isn't an int
+     * @return The int value, or the default
+     */
+    public int getInt(String key, int def){
+        ValueNode vn = resolveValue(key);
+        return vn!=null ? vn.intValue(def) : def;
+    }
+
+    /**
+     * Retrieves an int from a pre-parsed path without boxing it
+     * @param path The path to search for, relative to this section
+     * @param def The value to return if the path wasn't found or its value isn't an int
+     * @return The int value, or the default
+     */
+    public int getInt(ConfigPath path, int def){
+        ValueNode vn = resolveValue(path);
+        return vn!=null ? vn.intValue(def) : def;
+    }
+
+    /**
+     * Retrieves a long from a key-pair without boxing it
+     * @param key The key to search for
+     * @param def The value to return if the key wasn't found or its value isn't a long
+     * @return The long value, or the default
+     */
+    public long getLong(String key, long def){
+        ValueNode vn = resolveValue(key);
+        return vn!=null ? vn.longValue(def) : def;
+    }
+
+    /**
+     * Retrieves a long from a pre-parsed path without boxing it
+     * @param path The path to search for, relative to this section
+     * @param def The value to return if the path wasn't found or its value isn't a long
+     * @return The long value, or the default
+     */
+    public long getLong(ConfigPath path, long def){
+        ValueNode vn = resolveValue(path);
+        return vn!=null ? vn.longValue(def) : def;
+    }
+
+    /**
+     * Retrieves a double from a key-pair without boxing it
+     * @param key The key to search for
+     * @param def The value to return if the key wasn't found or its value isn't a number
+     * @return The double value, or the default
+     */
+    public double getDouble(String key, double def){
+        ValueNode vn = resolveValue(key);
+        return vn!=null ? vn.doubleValue(def) : def;
+    }
+
+    /**
+     * Retrieves a double from a pre-parsed path without boxing it
+     * @param path The path to search for, relative to this section
+     * @param def The value to return if the path wasn't found or its value isn't a number
+     * @return The double value, or the default
+     */
+    public double getDouble(ConfigPath path, double def){
+        ValueNode vn = resolveValue(path);
+        return vn!=null ? vn.doubleValue(def) : def;
+    }
+
+    /**
+     * Retrieves a boolean from a key-pair without boxing it
+     * @param key The key to search for
+     * @param def The value to return if the key wasn't found or its value isn't a boolean
+     * @return The boolean value, or the default
+     */
+    public boolean getBoolean(String key, boolean def){
+        ValueNode vn = resolveValue(key);
+        return vn!=null ? vn.booleanValue(def) : def;
+    }
+
+    /**
+     * Retrieves a boolean from a pre-parsed path without boxing it
+     * @param path The path to search for, relative to this section
+     * @param def The value to return if the path wasn't found or its value isn't a boolean
+     * @return The boolean value, or the default
+     */
+    public boolean getBoolean(ConfigPath path, boolean def){
+        ValueNode vn = resolveValue(path);
+        return vn!=null ? vn.booleanValue(def) : def;
+    }
+
+    // Lookups and conversions shared by the String and ConfigPath getters
+
+    /**
+     * Resolves a key or dot separated path to the value node it points to, walking the path only once.
+     * @param key The key or path to resolve
+     * @return The value node, or null if nothing was found or the node doesn't hold a value
+     */
+    protected final ValueNode resolveValue(String key){
+        return getChild(key) instanceof ValueNode vn ? vn : null;
+    }
+
+    /**
+     * Resolves a pre-parsed path to the value node it points to.
+     * @param path The path to resolve
+     * @return The value node, or null if nothing was found or the node doesn't hold a value
+     */
+    protected final ValueNode resolveValue(ConfigPath path){
+        return getChild(path) instanceof ValueNode vn ? vn : null;
+    }
+
+    private <T> @Nullable T castValue(ValueNode vn, Class<T> classOfT){
+        if(vn==null || vn.getValue()==null) return null;
+        Object value = vn.getValue();
+        if(value==null || !classOfT.isAssignableFrom(value.getClass())){
+            LMFileUtil fu = LMFileUtil.getInst();
+            MessageUtil mu = fu.getMessageUtil();
+            mu.console(fu.getPluginName(), "&cUnable to get value for " + path + " with type: " + classOfT);
+        }
+        return value==null ? null : classOfT.cast(value);
+    }
+
+    private BigDecimal toDecimal(ValueNode vn){
+        if(vn==null || vn.getValue()==null) return null;
+        Object value = vn.getValue();
+        if(value instanceof BigDecimal dec) return dec;
+        try {
+            return new BigDecimal(String.valueOf(vn.getValue()));
+        } catch (Exception ex){
+            return null;
+        }
+    }
+
+    private Boolean toBoolean(ValueNode vn){
+        if(vn==null || vn.getValue()==null) return null;
+        Object value = vn.getValue();
+        if(value instanceof Boolean b) return b;
+        try {
+            return Boolean.parseBoolean(String.valueOf(vn.getValue()));
+        } catch (Exception ex){
+            return false;
+        }
+    }
+
+    private Double toDouble(ValueNode vn){
+        if(vn==null || vn.getValue()==null) return null;
+        Object value = vn.getValue();
+        if(value instanceof Double d) return d;
+        try {
+            return Double.parseDouble(String.valueOf(vn.getValue()));
+        } catch (Exception ex){
+            return 0.0;
+        }
+    }
+
+    private <T extends Enum<T>> T toEnum(ValueNode vn, Class<T> enumClass){
+        if(vn==null) return null;
+        return vn.enumValue(enumClass);
+    }
+
+    private Integer toInt(ValueNode vn){
+        if(vn==null || vn.getValue()==null) return null;
         Object value = vn.getValue();
         if(value instanceof Integer i) return i;
         try {
@@ -353,15 +801,8 @@ public class SectionNode implements ConfigNode {
         }
     }
 
-    /**
-     * Retrieves a long from a key-pair
-     * @param key the key to search for
-     * @return a long value if found, null otherwise
-     */
-    public Long getLong(String key){
-        if(!hasChild(key)) return null;
-        ConfigNode node = getChild(key);
-        if(!(node instanceof ValueNode vn) || vn.getValue()==null) return null;
+    private Long toLong(ValueNode vn){
+        if(vn==null || vn.getValue()==null) return null;
         Object value = vn.getValue();
         if(value instanceof Long l) return l;
         try {
@@ -371,15 +812,8 @@ public class SectionNode implements ConfigNode {
         }
     }
 
-    /**
-     * Retrieves a String from a key-pair. String.strip() will be needed to remove any trailing or leading space.
-     * @param key the key to search for
-     * @return A string if found, null otherwise.
-     */
-    public String getString(String key){
-        if(!hasChild(key)) return null;
-        ConfigNode node = getChild(key);
-        if(!(node instanceof ValueNode vn) || vn.getValue()==null) return null;
+    private String toStringValue(ValueNode vn){
+        if(vn==null || vn.getValue()==null) return null;
         Object value = vn.getValue();
         if(value instanceof String str) return str;
         try {
@@ -401,18 +835,22 @@ public class SectionNode implements ConfigNode {
     }
 
     @Override
-    public void write(StringBuilder out, int indent){
+    public void write(ConfigWriter out, int indent) throws IOException {
         if(key!=null && !key.isEmpty()){
-            out.append(" ".repeat(indent))
+            out.indent(indent)
                     .append(key) // The key of the section
-                    .append(":"); // Adds colon to the end of the section
-            if(children.isEmpty()) out.append(" "); // optional trailing space for empty sections
-            out.append("\n");
+                    .append(':'); // Adds colon to the end of the section
+            if(children.isEmpty()) out.append(' '); // optional trailing space for empty sections
+            out.newLine();
             indent += 2; // increase indent for children
         }
-        if(children.isEmpty()) return;
-        children.sort(Comparator.comparingInt(ConfigNode::getIndex));
+        if(!isSorted()) children.sort(Comparator.comparingInt(ConfigNode::getIndex));  // An index was changed directly
         for(ConfigNode cn : children) cn.write(out, indent);
     }
 
+    /**
+     * A snapshot of a section, and the modification count of the section it matches
+     */
+    private record Snapshot(long modCount, SectionNode section){}
+
 }
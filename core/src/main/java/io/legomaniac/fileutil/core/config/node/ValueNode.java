@@ -1,6 +1,15 @@
 package io.legomaniac.fileutil.core.config.node;
 
+import io.legomaniac.fileutil.core.config.io.ConfigWriter;
+import io.legomaniac.fileutil.core.config.io.ScalarParser;
+import io.legomaniac.fileutil.core.util.EnumCache;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * This is a Node that has a key-value pair, allowing saving information from disk into variables later on.
@@ -11,8 +20,14 @@ public class ValueNode implements ConfigNode {
     private final String path;
     protected int index;
 
-    protected Object value; // Value
+    protected volatile Object value; // Value, or a RawValue until it is first used
     protected List<String> inlineComments; // Comment after the value
+    SectionNode parent; // The section holding this node, which is told when the value changes
+
+    // Conversions of the value, which are only reused while the value they were made from is still the current one
+    private static final byte INT = 1, LONG = 2, DOUBLE = 3, BOOLEAN = 4;
+    private volatile Converted converted;
+    private volatile ResolvedEnum resolvedEnum;
 
     public ValueNode(String path, String key, Object defaultValue){
         this.path = path;
@@ -20,6 +35,20 @@ public class ValueNode implements ConfigNode {
         this.value = defaultValue;
     }
 
+    /**
+     * Creates a node holding a value exactly as it was read from a config file. The value is only converted into its
+     * object type the first time it is used, so values a plugin never reads are never parsed.
+     * @param path The path for the node
+     * @param key The key of the node
+     * @param raw The value as it was written in the file
+     * @return The new node
+     */
+    public static ValueNode fromRaw(String path, String key, String raw){
+        ValueNode node = new ValueNode(path, key, null);
+        if(raw!=null) node.value = new RawValue(raw);
+        return node;
+    }
+
     @Override
     public String getPath(){
         return path;
@@ -36,7 +65,134 @@ public class ValueNode implements ConfigNode {
      * @return The value as an Object
      */
     public final Object getValue(){
-        return value;
+        Object current = value;
+        while(current instanceof RawValue raw){
+            Object parsed = ScalarParser.parse(raw.text());
+            synchronized(this){  // Only taken the first time a value is read
+                if(value==raw) value = parsed;  // Unless the value was replaced while parsing
+                current = value;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Retrieves the value as an int. The conversion is only done once, and reused until the value changes.
+     * @param def The value to return if there is no value, or if it isn't a whole number that fits inside an int
+     * @return The value as an int
+     */
+    public final int intValue(int def){
+        Converted c = converted(INT);
+        return c.valid() ? (int) c.bits() : def;
+    }
+
+    /**
+     * Retrieves the value as a long. The conversion is only done once, and reused until the value changes.
+     * @param def The value to return if there is no value, or if it isn't a whole number that fits inside a long
+     * @return The value as a long
+     */
+    public final long longValue(long def){
+        Converted c = converted(LONG);
+        return c.valid() ? c.bits() : def;
+    }
+
+    /**
+     * Retrieves the value as a double. The conversion is only done once, and reused until the value changes.
+     * @param def The value to return if there is no value, or if it isn't a number
+     * @return The value as a double
+     */
+    public final double doubleValue(double def){
+        Converted c = converted(DOUBLE);
+        return c.valid() ? Double.longBitsToDouble(c.bits()) : def;
+    }
+
+    /**
+     * Retrieves the value as a boolean. The conversion is only done once, and reused until the value changes.
+     * @param def The value to return if there is no value, or if it isn't "true" or "false"
+     * @return The value as a boolean
+     */
+    public final boolean booleanValue(boolean def){
+        Converted c = converted(BOOLEAN);
+        return c.valid() ? c.bits()!=0 : def;
+    }
+
+    /**
+     * Retrieves the value as an enum constant. A String value is matched to a constant name ignoring case and surrounding
+     * whitespace, and the constant found is reused until the value changes.
+     * @param enumClass The enum class of the constant
+     * @return The enum constant, or null if there is no value or it doesn't name a constant of that enum
+     */
+    public final <E extends Enum<E>> E enumValue(Class<E> enumClass){
+        Object value = getValue();
+        ResolvedEnum cached = resolvedEnum;
+        if(cached!=null && cached.source()==value && cached.constant().getDeclaringClass()==enumClass){
+            return enumClass.cast(cached.constant());
+        }
+        E resolved = null;
+        if(enumClass.isInstance(value)){
+            resolved = enumClass.cast(value);
+        } else if(value instanceof String str){
+            resolved = EnumCache.get(enumClass, str);
+        }
+        if(resolved!=null) resolvedEnum = new ResolvedEnum(value, resolved);
+        return resolved;
+    }
+
+    /**
+     * Retrieves the conversion of the current value into a primitive type, converting it if it hasn't been yet
+     */
+    private Converted converted(byte type){
+        Object value = getValue();
+        Converted c = converted;
+        if(c!=null && c.type()==type && c.source()==value) return c;
+        c = convert(value, type);
+        converted = c;
+        return c;
+    }
+
+    private static Converted convert(Object value, byte type){
+        try {
+            return switch(type){
+                case INT -> new Converted(value, type, true, Math.toIntExact(exactLong(value)));
+                case LONG -> new Converted(value, type, true, exactLong(value));
+                case DOUBLE -> new Converted(value, type, true, Double.doubleToRawLongBits(exactDouble(value)));
+                default -> {
+                    String str = value instanceof String s ? s.strip() : null;
+                    if(value instanceof Boolean b) yield new Converted(value, type, true, b ? 1 : 0);
+                    if("true".equalsIgnoreCase(str) || "false".equalsIgnoreCase(str)){
+                        yield new Converted(value, type, true, "true".equalsIgnoreCase(str) ? 1 : 0);
+                    }
+                    yield new Converted(value, type, false, 0);
+                }
+            };
+        } catch (ArithmeticException | NumberFormatException ex){
+            return new Converted(value, type, false, 0);
+        }
+    }
+
+    /**
+     * Converts a value into a long without losing any part of it
+     * @throws NumberFormatException If the value isn't a number
+     * @throws ArithmeticException If the number has a fraction or doesn't fit inside a long
+     */
+    private static long exactLong(Object value){
+        if(value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte){
+            return ((Number) value).longValue();
+        }
+        if(value instanceof BigDecimal dec) return dec.longValueExact();
+        if(value instanceof Double || value instanceof Float) return new BigDecimal(((Number) value).doubleValue()).longValueExact();
+        if(value instanceof String str) return Long.parseLong(str.strip());
+        throw new NumberFormatException();
+    }
+
+    /**
+     * Converts a value into a double
+     * @throws NumberFormatException If the value isn't a number
+     */
+    private static double exactDouble(Object value){
+        if(value instanceof Number n) return n.doubleValue();
+        if(value instanceof String str) return Double.parseDouble(str.strip());
+        throw new NumberFormatException();
     }
 
     @Override
@@ -46,7 +202,10 @@ public class ValueNode implements ConfigNode {
 
     @Override
     public void setIndex(int index){
+        checkMutable();
+        if(this.index==index) return;
         this.index = index;
+        if(parent!=null) parent.touch();  // The parent's order changes, so it has to be written again
     }
 
     /**
@@ -55,22 +214,55 @@ public class ValueNode implements ConfigNode {
      * @param value The value to set
      */
     public final void setValue(Object value){
-        if(value instanceof String str){
-            if(str.startsWith(" ") || str.endsWith(" ")){
-                this.value = "\"" + str + "\"";
-            } else {
-                this.value = str;
+        checkMutable();
+        if(value instanceof String str && (str.startsWith(" ") || str.endsWith(" "))) value = "\"" + str + "\"";
+        synchronized(this){
+            Object current = this.value;
+            if(!(current instanceof RawValue) && Objects.equals(current, value)) return;  // Unchanged
+            this.value = value;
+        }
+        if(parent!=null) parent.touch();
+    }
+
+    /**
+     * Copies the value of another node into this one. A value that hasn't been read yet is copied without being
+     * converted, which allows merging a file from disk without parsing every value in it.
+     * @param source The node to copy the value from
+     */
+    public final void copyValue(ValueNode source){
+        if(source==null) return;
+        checkMutable();
+        Object sourceValue = source.value;
+        if(sourceValue instanceof RawValue){
+            synchronized(this){
+                if(sourceValue.equals(this.value)) return;  // Same text as the value already held, so nothing changes
+                this.value = sourceValue;  // Raw values never change, so they can be shared
             }
+            if(parent!=null) parent.touch();
         } else {
-            this.value = value;
+            setValue(sourceValue);
         }
     }
 
+    /**
+     * Checks if this node holds the same value as another. Values that haven't been read yet are compared by their text,
+     * and are only converted if the other value has a different form.
+     * @param other The node to compare with
+     * @return True if both nodes hold an equal value
+     */
+    public final boolean hasSameValue(ValueNode other){
+        if(other==null) return false;
+        Object value = this.value;
+        if(value instanceof RawValue && value.equals(other.value)) return true;
+        return Objects.equals(getValue(), other.getValue());
+    }
+
     /**
      * Adds comments after the value that will properly be saved and parsed between loads
      * @param comments List of comments to append to the line
      */
     public void setInlineComments(List<String> comments){
+        checkMutable();
         this.inlineComments = comments;
     }
 
@@ -81,35 +273,113 @@ public class ValueNode implements ConfigNode {
         return inlineComments;
     }
 
+    /**
+     * Creates a copy of this node for a copy of the section holding it
+     * @param parent The copy the node belongs to
+     * @param frozen True if the copy is part of a snapshot
+     * @return The copy, holding the current value and inline comments
+     */
+    final ValueNode copy(SectionNode parent, boolean frozen){
+        ValueNode copy = emptyCopy();
+        copy.value = value;  // Raw values are shared, so they are only parsed once
+        copy.index = index;
+        if(inlineComments!=null){
+            List<String> comments = new ArrayList<>(inlineComments);
+            copy.inlineComments = frozen ? Collections.unmodifiableList(comments) : comments;
+        }
+        copy.parent = parent;
+        return copy;
+    }
+
+    /**
+     * Creates the copy of this node that a snapshot or deep copy starts from, without its value
+     * @return A new node with the same path and key as this one
+     */
+    protected ValueNode emptyCopy(){
+        return new ValueNode(path, key, null);
+    }
+
+    /**
+     * Stops a change to a node that is part of a snapshot
+     * @throws UnsupportedOperationException If this node is part of a snapshot
+     */
+    private void checkMutable(){
+        if(parent!=null && parent.isFrozen()) throw new UnsupportedOperationException("A config snapshot cannot be changed");
+    }
+
     @Override
-    public void write(StringBuilder out, int indent){
-        if(out==null) return;
-        out.append(" ".repeat(indent))
+    public void write(ConfigWriter out, int indent) throws IOException {
+        out.indent(indent)
                 .append(key)
                 .append(": ");
+        Object value = getValue();
         if(value instanceof List<?> list){
             out.append(list);
         } else if(value instanceof Enum<?> e){
-            out.append("\"").append(e.name()).append("\"");
+            out.append('"').append(e.name()).append('"');
         } else if(value instanceof Integer integer){
-            out.append(integer);
+            out.append(integer.intValue());
         } else if(value instanceof Long lng){
-            out.append(lng);
+            out.append(lng.longValue());
         } else if(value instanceof Double dbl){
-            out.append(dbl);
+            appendFloating(out, dbl);
         } else if(value instanceof Float fl){
-            out.append(fl);
+            appendFloating(out, fl);
         } else if(value instanceof String str){
-            out.append("\"").append(str).append("\"");
+            out.append('"').append(str).append('"');
         } else {
             out.append(value);
         }
 
         // Inline comments
         if(inlineComments !=null && !inlineComments.isEmpty()){
-            out.append(" # ").append(String.join(" | ", inlineComments));
+            out.append(" # ").append(inlineComments.get(0));
+            for(int i = 1; i < inlineComments.size(); i++) out.append(" | ").append(inlineComments.get(i));
         }
-        out.append("\n");
+        out.newLine();
     }
 
+    /**
+     * Writes a double or float, using the YAML forms for infinity and NaN so they are read back as numbers.
+     * @param out The writer to write to
+     * @param number The Double or Float to write
+     * @throws IOException If the file could not be written to
+     */
+    protected static void appendFloating(ConfigWriter out, Number number) throws IOException {
+        if(number instanceof Double dbl){
+            out.append(dbl.doubleValue());
+            return;
+        }
+        double d = number.doubleValue();
+        if(Double.isNaN(d)){
+            out.append(".nan");
+        } else if(Double.isInfinite(d)){
+            out.append(d > 0 ? ".inf" : "-.inf");
+        } else {
+            out.append(number);
+        }
+    }
+
+    /**
+     * A value exactly as it was read from a config file, before it is parsed
+     * @param text The raw text of the value
+     */
+    private record RawValue(String text){}
+
+    /**
+     * A value converted into a primitive type
+     * @param source The value the conversion was made from
+     * @param type The primitive type it was converted to
+     * @param valid False if the value couldn't be converted
+     * @param bits The converted value, where doubles are stored as their raw bits and booleans as 0 or 1
+     */
+    private record Converted(Object source, byte type, boolean valid, long bits){}
+
+    /**
+     * A value resolved to an enum constant
+     * @param source The value the constant was resolved from
+     * @param constant The enum constant
+     */
+    private record ResolvedEnum(Object source, Enum<?> constant){}
+
 }
@@ -0,0 +1,91 @@
+package io.legomaniac.fileutil.core.config.node.section;
+
+import io.legomaniac.fileutil.core.config.node.SectionNode;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * A list section holding int values, stored in an int array without boxing each value.
+ */
+public final class IntListSectionNode extends PrimitiveListSectionNode<int[]> {
+
+    public IntListSectionNode(int sectionIndex, String path, String key, int... values){
+        super(sectionIndex, path, key, Integer.class, values.clone());
+    }
+
+    /**
+     * Adds a value to the end of this list
+     * @param value The value to add
+     * @return The current section to change objects together
+     */
+    public IntListSectionNode add(int value){
+        int position = reserve();
+        values[position] = value;
+        added(position, value);
+        return this;
+    }
+
+    /**
+     * Retrieves a single value of this list
+     * @param index The position of the value
+     * @return The value at that position
+     */
+    public int get(int index){
+        Objects.checkIndex(index, size);
+        return values[index];
+    }
+
+    /**
+     * @return A copy of the values in this list
+     */
+    public int[] toArray(){
+        return copyValues();
+    }
+
+    /**
+     * @return A stream over the values in this list
+     */
+    public IntStream stream(){
+        int size = this.size;
+        return Arrays.stream(values, 0, size);
+    }
+
+    @Override
+    public boolean containsNode(Object value){
+        return value instanceof Integer i && containsKey(i);
+    }
+
+    @Override
+    protected SectionNode emptyCopy(){
+        return new IntListSectionNode(sectionIndex, path, key, toArray());
+    }
+
+    @Override
+    protected boolean append(Object value){
+        if(!(value instanceof Integer i)) return false;
+        add(i);
+        return true;
+    }
+
+    @Override
+    protected Object[] valueArray(){
+        int size = this.size;
+        int[] values = this.values;
+        Object[] boxed = new Object[size];
+        for(int i = 0; i < size; i++) boxed[i] = values[i];
+        return boxed;
+    }
+
+    @Override
+    protected int[] copyOf(int[] values, int length){
+        return Arrays.copyOf(values, length);
+    }
+
+    @Override
+    protected long longAt(int[] values, int index){
+        return values[index];
+    }
+
+}
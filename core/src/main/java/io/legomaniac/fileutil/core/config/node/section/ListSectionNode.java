@@ -1,30 +1,74 @@
 package io.legomaniac.fileutil.core.config.node.section;
 
+import io.legomaniac.fileutil.core.config.ConfigPath;
 import io.legomaniac.fileutil.core.config.node.BlankNode;
 import io.legomaniac.fileutil.core.config.node.CommentNode;
 import io.legomaniac.fileutil.core.config.node.ConfigNode;
 import io.legomaniac.fileutil.core.config.node.SectionNode;
+import io.legomaniac.fileutil.core.util.EnumCache;
 
 import javax.annotation.Nullable;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * This node contains a {@link List} of {@link ListSectionNode}s. The object type of every node must match, which means
  * the first inserted node will define the data type for the following nodes.
+ * <p>
+ * Lists of ints or longs can use {@link IntListSectionNode} or {@link LongListSectionNode} instead, which store their
+ * values in a primitive array.
+ * </p>
+ * <p>
+ * The typed lists returned by getters such as {@link #getStringList()} are converted once and then reused until this
+ * list changes, so they cannot be modified.
+ * </p>
  */
-public final class ListSectionNode extends SectionNode {
+public class ListSectionNode extends SectionNode {
 
-    private Class<?> elementType;
+    private static final Object NULL_VALUE = new Object(); // Stands in for null inside the value index
+
+    private volatile Class<?> elementType;
+    private volatile ValueIndex valueIndex; // Built by the first containsNode call, then kept up-to-date by addValueNode
+    private volatile TypedViews typedViews; // Converted lists by their element type, replaced whenever this list changes
 
     public ListSectionNode(int sectionIndex, String path, String key){
         super(sectionIndex, path, key);
     }
 
+    /**
+     * Creates a list section with its element type already set
+     * @param sectionIndex The index of this section
+     * @param path The full path of this section
+     * @param key The key of this section
+     * @param elementType The type every value must be
+     */
+    protected ListSectionNode(int sectionIndex, String path, String key, Class<?> elementType){
+        super(sectionIndex, path, key);
+        this.elementType = elementType;
+    }
+
+    /**
+     * Creates the list section best suited for a list starting with a value. Lists of ints or longs are stored in a
+     * primitive array, while every other list uses a plain {@link ListSectionNode}.
+     * @param sectionIndex The index of this section
+     * @param path The full path of this section
+     * @param key The key of this section
+     * @param firstValue The first value that will be added to the list
+     * @return The new, empty section
+     */
+    public static ListSectionNode create(int sectionIndex, String path, String key, Object firstValue){
+        if(firstValue instanceof Integer) return new IntListSectionNode(sectionIndex, path, key);
+        if(firstValue instanceof Long) return new LongListSectionNode(sectionIndex, path, key);
+        return new ListSectionNode(sectionIndex, path, key);
+    }
+
     /**
      * Adds a new ListValueNode to this Section. If the element type hasn't been set yet, then the class type is set and
      * the node is added. If the class type has already been set, then the new node's value is checked. The node will only
@@ -34,6 +78,7 @@ public final class ListSectionNode extends SectionNode {
      */
     public ListSectionNode addValueNode(ListValueNode node){
         if(node==null) return this;
+        checkMutable();
 
         Object value = node.getValue();
         if(value!=null){
@@ -46,23 +91,44 @@ public final class ListSectionNode extends SectionNode {
 
         if(value!=null && !elementType.isInstance(value)) return this;
 
+        ValueIndex index = valueIndex;
+        boolean indexCurrent = index!=null && index.modCount==getModCount();
         int childIndex = children.isEmpty() ? 0 : children.size();
         node.setIndex(childIndex);
         children.add(node);
+        childAdded(node);
+        if(indexCurrent){
+            index.values.add(value==null ? NULL_VALUE : value);
+            index.modCount = getModCount();
+        }
         return this;
     }
 
+    @Override
+    protected SectionNode emptyCopy(){
+        return new ListSectionNode(sectionIndex, path, key, elementType);
+    }
+
     /**
-     * Checks this section for an object value found in this list. This is useful for Strings or enum data types.
+     * Checks this section for an object value found in this list. This is useful for Strings or enum data types. The
+     * first check builds a set of every value in the list, so any following check is a single lookup. The set is rebuilt
+     * if a value is changed or the list is cleared.
      * @param value The value to check for
      * @return True if the value is from, false if not found or if this Section has no sub nodes
      */
     public boolean containsNode(Object value){
+        List<ConfigNode> children = this.children;
         if(children.isEmpty()) return false;
-        return children.stream()
-                .filter(ListValueNode.class::isInstance)
-                .map(ListValueNode.class::cast)
-                .anyMatch(lvn -> lvn.getValue().equals(value));
+        long modCount = getModCount();  // Read first, so anything changed while building makes the index out of date
+        ValueIndex index = valueIndex;
+        if(index==null || index.modCount!=modCount){
+            index = new ValueIndex(modCount);
+            for(ConfigNode cn : children){
+                if(cn instanceof ListValueNode lvn) index.values.add(lvn.getValue()==null ? NULL_VALUE : lvn.getValue());
+            }
+            valueIndex = index;
+        }
+        return index.values.contains(value==null ? NULL_VALUE : value);
     }
 
     /**
@@ -82,39 +148,63 @@ public final class ListSectionNode extends SectionNode {
      * @return A list of values in this Section
      */
     public List<?> getValues(){
-        return children.stream()
-                .filter(ListValueNode.class::isInstance)
-                .map(ListValueNode.class::cast)
-                .map(ListValueNode::getValue)
-                .map(elementType::cast)
-                .toList();
+        return Collections.unmodifiableList(Arrays.asList(valueArray()));
+    }
+
+    /**
+     * @return The amount of values in this list
+     */
+    public int size(){
+        return children.size();
+    }
+
+    /**
+     * Copies every value of this list into a new array
+     * @return The values, in the order of this list
+     */
+    protected Object[] valueArray(){
+        List<ConfigNode> children = this.children;
+        Object[] values = new Object[children.size()];
+        int i = 0;
+        for(ConfigNode cn : children) values[i++] = cn instanceof ListValueNode lvn ? lvn.getValue() : null;
+        return i==values.length ? values : Arrays.copyOf(values, i);
     }
 
     /**
      * Collects all values inside of this Section, first converting to {@link ListValueNode}, then mapping all their
-     * values to the proper element type. The function will act as an additional converter for every specific type
+     * values to the proper element type. The function will act as an additional converter for every specific type. The
+     * result is cached per type until this section is modified.
      * @param type The class type to convert to
      * @param converter Used to convert the list to a specific data type if not already instance of.
-     * @return A list of type T
+     * @return An unmodifiable list of type T
      */
     private <T> List<T> collectValues(Class<T> type, Function<Object, T> converter){
-        return children.stream()
-                .filter(ListValueNode.class::isInstance) // Keep only elements that are instances of ListValueNode
-                .map(ListValueNode.class::cast)
-                .map(ListValueNode::getValue) // Extracts the wrapped value from each ListValueNode
-                .filter(Objects::nonNull) // removes any null objects
-                .map(value -> {
-                    if(type.isInstance(value)){ // if the value is already of type T, return it directly
-                        return type.cast(value);
-                    }
-                    try { // If not already of type T, attempt to convert it with the converter provider
-                        return converter.apply(value);
-                    } catch (Exception ignored){
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull) // Again filter for null objects
-                .collect(Collectors.toList()); // Return the stream as a list of type T.
+        long modCount = getModCount();  // Read first, so anything changed while converting makes the views out of date
+        TypedViews views = typedViews;
+        if(views==null || views.modCount()!=modCount){
+            views = new TypedViews(modCount, new ConcurrentHashMap<>());
+            typedViews = views;
+        }
+        @SuppressWarnings("unchecked")
+        List<T> cached = (List<T>) views.lists().get(type);
+        if(cached!=null) return cached;
+
+        Object[] raw = valueArray();  // Extracts the wrapped value from each ListValueNode
+        List<T> values = new ArrayList<>(raw.length);
+        for(Object value : raw){
+            if(value==null) continue;  // removes any null objects
+            if(type.isInstance(value)){  // if the value is already of type T, add it directly
+                values.add(type.cast(value));
+                continue;
+            }
+            try {  // If not already of type T, attempt to convert it with the converter provider
+                T converted = converter.apply(value);
+                if(converted!=null) values.add(converted);
+            } catch (Exception ignored){}
+        }
+        List<T> view = Collections.unmodifiableList(values);
+        views.lists().put(type, view);
+        return view;
     }
 
     /**
@@ -148,7 +238,7 @@ public final class ListSectionNode extends SectionNode {
     public <E extends Enum<E>> List<E> getEnumList(Class<E> enumClass){
         return collectValues(
                 enumClass,
-                v -> v instanceof Enum<?> e ? enumClass.cast(e) : Enum.valueOf(enumClass, v.toString().trim().toUpperCase(Locale.ROOT))
+                v -> v instanceof Enum<?> e ? enumClass.cast(e) : EnumCache.get(enumClass, v.toString())
         );
     }
 
@@ -243,6 +333,11 @@ public final class ListSectionNode extends SectionNode {
         return this;
     }
 
+    @Override
+    public SectionNode add(ConfigNode node, int index){
+        return this;
+    }
+
     @Override
     @Nullable
     public SectionNode getSection(String key){
@@ -255,6 +350,12 @@ public final class ListSectionNode extends SectionNode {
         return null;
     }
 
+    @Override
+    @Nullable
+    public ConfigNode getChild(ConfigPath path){
+        return null;
+    }
+
     @Override
     public boolean hasChild(String key){
         return false;
@@ -278,4 +379,21 @@ public final class ListSectionNode extends SectionNode {
         return null;
     }
 
+    /**
+     * A set of every value in the list, and the modification count of the list it matches
+     */
+    private static final class ValueIndex {
+        private final Set<Object> values = ConcurrentHashMap.newKeySet();
+        private volatile long modCount;
+
+        private ValueIndex(long modCount){
+            this.modCount = modCount;
+        }
+    }
+
+    /**
+     * Converted lists by their element type, and the modification count of the list they match
+     */
+    private record TypedViews(long modCount, Map<Class<?>, List<?>> lists){}
+
 }
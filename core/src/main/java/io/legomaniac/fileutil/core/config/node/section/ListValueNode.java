@@ -1,8 +1,10 @@
 package io.legomaniac.fileutil.core.config.node.section;
 
+import io.legomaniac.fileutil.core.config.io.ConfigWriter;
 import io.legomaniac.fileutil.core.config.node.ValueNode;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
 
@@ -29,24 +31,30 @@ public final class ListValueNode extends ValueNode {
     }
 
     @Override
-    public void write(StringBuilder out, int indent){
-        if(out==null) return;
-        out.append(" ".repeat(indent)).append("- ");
+    protected ValueNode emptyCopy(){
+        return new ListValueNode(null);
+    }
+
+    @Override
+    public void write(ConfigWriter out, int indent) throws IOException {
+        out.indent(indent).append("- ");
+        Object value = getValue();
         if(value instanceof BigDecimal bd){
             out.append(bd);
         } else if(value instanceof Integer i){
-            out.append(i);
+            out.append(i.intValue());
         } else if(value instanceof Long l){
-            out.append(l);
+            out.append(l.longValue());
         } else if(value instanceof Double d){
-            out.append(d);
+            appendFloating(out, d);
         } else if(value instanceof Enum<?>){
             out.append(value);
-        } else if(value instanceof String){
-            String withQuotes = "\"" + value + "\"";
-            out.append(withQuotes);
+        } else if(value instanceof String str){
+            out.append('"').append(str).append('"');
+        } else {
+            out.append(value==null ? "~" : value);
         }
-        out.append("\n");
+        out.newLine();
     }
 
     @Override
@@ -0,0 +1,97 @@
+package io.legomaniac.fileutil.core.config.node.section;
+
+import io.legomaniac.fileutil.core.config.node.SectionNode;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.LongStream;
+
+/**
+ * A list section holding long values, stored in a long array without boxing each value.
+ */
+public final class LongListSectionNode extends PrimitiveListSectionNode<long[]> {
+
+    public LongListSectionNode(int sectionIndex, String path, String key, long... values){
+        super(sectionIndex, path, key, Long.class, values.clone());
+    }
+
+    /**
+     * Adds a value to the end of this list
+     * @param value The value to add
+     * @return The current section to change objects together
+     */
+    public LongListSectionNode add(long value){
+        int position = reserve();
+        values[position] = value;
+        added(position, value);
+        return this;
+    }
+
+    /**
+     * Retrieves a single value of this list
+     * @param index The position of the value
+     * @return The value at that position
+     */
+    public long get(int index){
+        Objects.checkIndex(index, size);
+        return values[index];
+    }
+
+    /**
+     * @return A copy of the values in this list
+     */
+    public long[] toArray(){
+        return copyValues();
+    }
+
+    /**
+     * @return A stream over the values in this list
+     */
+    public LongStream stream(){
+        int size = this.size;
+        return Arrays.stream(values, 0, size);
+    }
+
+    /**
+     * Checks this list for a value. Integers are compared as longs.
+     * @param value The value to check for
+     * @return True if the value is in this list
+     */
+    @Override
+    public boolean containsNode(Object value){
+        if(!(value instanceof Long || value instanceof Integer)) return false;
+        return containsKey(((Number) value).longValue());
+    }
+
+    @Override
+    protected SectionNode emptyCopy(){
+        return new LongListSectionNode(sectionIndex, path, key, toArray());
+    }
+
+    @Override
+    protected boolean append(Object value){
+        if(!(value instanceof Long || value instanceof Integer)) return false;  // Integers are widened
+        add(((Number) value).longValue());
+        return true;
+    }
+
+    @Override
+    protected Object[] valueArray(){
+        int size = this.size;
+        long[] values = this.values;
+        Object[] boxed = new Object[size];
+        for(int i = 0; i < size; i++) boxed[i] = values[i];
+        return boxed;
+    }
+
+    @Override
+    protected long[] copyOf(long[] values, int length){
+        return Arrays.copyOf(values, length);
+    }
+
+    @Override
+    protected long longAt(long[] values, int index){
+        return values[index];
+    }
+
+}
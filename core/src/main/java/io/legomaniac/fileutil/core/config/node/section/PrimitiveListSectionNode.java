@@ -0,0 +1,239 @@
+package io.legomaniac.fileutil.core.config.node.section;
+
+import io.legomaniac.fileutil.core.config.io.ConfigWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A list section that stores its values in a primitive array instead of a {@link ListValueNode} for every value. The
+ * values are not children of this section, so {@link #getChildren()} is always empty. {@link #getNodes()} creates
+ * detached copies of the values instead, and changing those copies will not change this list.
+ * @param <A> The primitive array type holding the values
+ */
+public abstract class PrimitiveListSectionNode<A> extends ListSectionNode {
+
+    protected volatile A values; // Replaced with a larger copy when full, so older readers keep a valid array
+    protected volatile int size; // Written after the value it adds, so a reader never sees a value that isn't there yet
+    private volatile KeyIndex valueKeys; // Built by the first containsKey call, then kept up-to-date by every add
+
+    /**
+     * Creates a list section holding the values of an array
+     * @param sectionIndex The index of this section
+     * @param path The full path of this section
+     * @param key The key of this section
+     * @param elementType The boxed type of every value
+     * @param values The array holding the values, which this section takes over
+     */
+    protected PrimitiveListSectionNode(int sectionIndex, String path, String key, Class<?> elementType, A values){
+        super(sectionIndex, path, key, elementType);
+        this.values = values;
+        this.size = Array.getLength(values);
+    }
+
+    /**
+     * Adds the value of a ListValueNode to this list. The value is only added if it is of this list's element type.
+     * @param node The node holding the value to add
+     * @return The current section to change objects together
+     */
+    @Override
+    public ListSectionNode addValueNode(ListValueNode node){
+        if(node!=null) append(node.getValue());
+        return this;
+    }
+
+    /**
+     * Returns a copy of every value in this Section as a {@link ListValueNode}.
+     * @return A list of detached nodes holding the values of this section
+     */
+    @Override
+    public List<ListValueNode> getNodes(){
+        Object[] values = valueArray();
+        List<ListValueNode> nodes = new ArrayList<>(values.length);
+        for(Object value : values) nodes.add(new ListValueNode(value));
+        return Collections.unmodifiableList(nodes);
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    @Override
+    public void clear(){
+        checkMutable();
+        if(size==0) return;
+        size = 0;
+        touch();
+    }
+
+    /**
+     * Checks this list for a value. The first check builds a hash set of every value in the list, which every following
+     * add keeps up-to-date, so any check after that is a single lookup. The set is only rebuilt if the list is cleared.
+     * @param value The value, widened to a long
+     * @return True if the value is in this list
+     */
+    protected final boolean containsKey(long value){
+        if(size==0) return false;
+        long modCount = getModCount();  // Read first, so anything added while building makes the set out of date
+        KeyIndex index = valueKeys;
+        if(index==null || index.modCount!=modCount){
+            int size = this.size;
+            A values = this.values;
+            index = new KeyIndex(modCount, size);
+            for(int i = 0; i < size; i++) index.keys.add(longAt(values, i));
+            valueKeys = index;
+        }
+        return index.keys.contains(value);
+    }
+
+    /**
+     * Makes room for one more value at the end of this list, replacing the array with a larger copy if it is full. The
+     * value is then stored in {@link #values} at the returned position, and made visible by {@link #added(int, long)}.
+     * @return The position of the new value
+     */
+    protected final int reserve(){
+        checkMutable();
+        int size = this.size;
+        A values = this.values;
+        if(size==Array.getLength(values)) this.values = copyOf(values, Math.max(8, size * 2));
+        return size;
+    }
+
+    /**
+     * Makes a value stored at the position from {@link #reserve()} part of this list, marking this list as modified and
+     * adding the value to the set built by {@link #containsKey(long)} if there is one.
+     * @param position The position the value was stored at
+     * @param value The value, widened to a long
+     */
+    protected final void added(int position, long value){
+        this.size = position + 1;
+        KeyIndex index = valueKeys;
+        boolean indexCurrent = index!=null && index.modCount==getModCount();
+        touch();
+        if(indexCurrent){
+            index.keys.add(value);
+            index.modCount = getModCount();
+        }
+    }
+
+    /**
+     * @return A copy of the values in this list, sized to fit them
+     */
+    protected final A copyValues(){
+        int size = this.size;
+        return copyOf(values, size);
+    }
+
+    /**
+     * Copies an array of values into a new array of a different length
+     * @param values The array to copy
+     * @param length The length of the new array
+     * @return The new array
+     */
+    protected abstract A copyOf(A values, int length);
+
+    /**
+     * Retrieves a value widened to a long, which is equal for two values only if they are the same value
+     * @param values The array holding the value
+     * @param index The position of the value
+     * @return The widened value
+     */
+    protected abstract long longAt(A values, int index);
+
+    /**
+     * Adds a value to the end of this list
+     * @param value The value to add
+     * @return True if the value was added, false if it isn't of this list's element type
+     */
+    protected abstract boolean append(Object value);
+
+    @Override
+    public void write(ConfigWriter out, int indent) throws IOException {
+        if(key!=null && !key.isEmpty()){
+            out.indent(indent).append(key).append(':');
+            if(size==0) out.append(' '); // optional trailing space for empty sections
+            out.newLine();
+            indent += 2; // increase indent for values
+        }
+        int size = this.size;
+        A values = this.values;
+        for(int i = 0; i < size; i++) out.indent(indent).append("- ").append(longAt(values, i)).newLine();
+    }
+
+    /**
+     * The set of every key in the list, and the modification count of the list it matches
+     */
+    private static final class KeyIndex {
+        private final KeySet keys;
+        private volatile long modCount;
+
+        private KeyIndex(long modCount, int size){
+            this.keys = new KeySet(size);
+            this.modCount = modCount;
+        }
+    }
+
+    /**
+     * A hash set of longs using open addressing, so no key is ever boxed. The table is replaced as a whole when it grows,
+     * so a reader on another thread always sees a complete table.
+     */
+    private static final class KeySet {
+        private volatile long[] table;  // 0 marks an empty slot, so the key 0 is tracked separately
+        private volatile boolean hasZero;
+        private int count;
+
+        private KeySet(int expected){
+            int capacity = 16;
+            while(capacity < expected * 2) capacity <<= 1;  // Kept at most half full
+            this.table = new long[capacity];
+        }
+
+        private void add(long key){
+            if(key==0){
+                hasZero = true;
+                return;
+            }
+            long[] table = this.table;
+            if((count + 1) * 2 > table.length){
+                long[] larger = new long[table.length * 2];
+                for(long k : table) if(k!=0) insert(larger, k);
+                table = larger;
+                this.table = larger;
+            }
+            if(insert(table, key)) count++;
+        }
+
+        private boolean contains(long key){
+            if(key==0) return hasZero;
+            long[] table = this.table;
+            int mask = table.length - 1;
+            for(int i = slot(key, mask); ; i = (i + 1) & mask){
+                long k = table[i];
+                if(k==key) return true;
+                if(k==0) return false;
+            }
+        }
+
+        private static boolean insert(long[] table, long key){
+            int mask = table.length - 1;
+            for(int i = slot(key, mask); ; i = (i + 1) & mask){
+                long k = table[i];
+                if(k==key) return false;
+                if(k==0){
+                    table[i] = key;
+                    return true;
+                }
+            }
+        }
+
+        private static int slot(long key, int mask){
+            long h = key * 0x9E3779B97F4A7C15L;  // Spreads keys that only differ in their low or high bits
+            return (int) (h >>> 32) & mask;
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package io.legomaniac.fileutil.core.util;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Utility Class to look up enum constants by name, without the reflection {@link Enum#valueOf(Class, String)} goes
+ * through on every call. The constants of every enum class are mapped by name the first time that class is used.
+ */
+public final class EnumCache {
+
+    private static final ClassValue<Map<String, Enum<?>>> CONSTANTS = new ClassValue<>(){
+        @Override
+        protected Map<String, Enum<?>> computeValue(Class<?> type){
+            Object[] constants = type.getEnumConstants();
+            if(constants==null) return Map.of();
+            Map<String, Enum<?>> byName = new HashMap<>(constants.length * 2);
+            for(Object constant : constants){
+                Enum<?> e = (Enum<?>) constant;
+                byName.put(e.name(), e);
+            }
+            return Map.copyOf(byName);
+        }
+    };
+
+    private EnumCache(){}
+
+    /**
+     * Retrieves an enum constant by its name. The name is first matched exactly, and then with surrounding whitespace
+     * removed and in upper case, so "stone" and " STONE " both find STONE.
+     * @param enumClass The enum class to search
+     * @param name The name of the constant
+     * @return The constant, or null if the enum has no constant with that name
+     */
+    public static <E extends Enum<E>> E get(Class<E> enumClass, String name){
+        if(enumClass==null || name==null) return null;
+        Map<String, Enum<?>> constants = CONSTANTS.get(enumClass);
+        Enum<?> constant = constants.get(name);
+        if(constant==null) constant = constants.get(name.strip().toUpperCase(Locale.ROOT));
+        return constant==null ? null : enumClass.cast(constant);
+    }
+
+}
@@ -2,16 +2,53 @@ package io.legomaniac.fileutil.core.util;
 
 import io.legomaniac.fileutil.core.LMFileUtil;
 import io.legomaniac.fileutil.core.config.ConfigFile;
+import io.legomaniac.fileutil.core.config.node.RootNode;
 
 import java.io.File;
-import java.util.HashSet;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Manager for handling everything related to file storage and configuration
  */
 public final class FileManager {
 
-    private final HashSet<ConfigFile> configs = new HashSet<>();
+    private static final long DEFAULT_SAVE_DELAY = 1000L;
+    private static final long DEFAULT_RELOAD_DELAY = 500L;
+
+    private final Set<ConfigFile> configs = ConcurrentHashMap.newKeySet();
+    private volatile boolean parallelLoading = false;
+
+    // Asynchronous saving
+    private final Map<ConfigFile, RootNode> pendingSaves = new ConcurrentHashMap<>();
+    private volatile long saveDelay = DEFAULT_SAVE_DELAY;
+    private ScheduledThreadPoolExecutor saveScheduler;
+    private volatile ExecutorService saveExecutor;
+
+    // Reloading files changed on disk
+    private final Map<ConfigFile, ScheduledFuture<?>> pendingReloads = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    private volatile long reloadDelay = DEFAULT_RELOAD_DELAY;
+    private WatchService watchService;
+    private volatile ScheduledThreadPoolExecutor reloadScheduler; // Waits out the reload delay, then reloads on its own thread
 
     public FileManager(File pluginDir){
         if(pluginDir==null) return;
@@ -28,7 +65,19 @@ public final class FileManager {
      * @param configFile New instance of a Configuration File
      */
     public void addConfig(ConfigFile configFile){
-        if(configFile!=null) configs.add(configFile);
+        if(configFile==null) return;
+        configs.add(configFile);
+        watch(configFile);
+    }
+
+    /**
+     * Sets whether {@link #loadConfigs()} loads every file at the same time instead of one after another. Files are read
+     * and parsed on virtual threads on Java 21 or newer, and on a pool with a thread per processor on older versions,
+     * while the calling thread waits for all of them to finish.
+     * @param parallelLoading True to load files in parallel
+     */
+    public void setParallelLoading(boolean parallelLoading){
+        this.parallelLoading = parallelLoading;
     }
 
     /**
@@ -36,9 +85,45 @@ public final class FileManager {
      */
     public void loadConfigs(){
         if(configs.isEmpty()) return;
+        if(parallelLoading && configs.size() > 1){
+            loadConfigsParallel();
+            return;
+        }
         for(ConfigFile cf : configs) cf.load();
     }
 
+    /**
+     * Loads every configuration file on its own thread, and waits for all of them to finish. A file that fails to load
+     * is reported without stopping the other files from loading.
+     */
+    private void loadConfigsParallel(){
+        ExecutorService executor = newVirtualThreadExecutor();
+        if(executor==null){
+            int threads = Math.min(configs.size(), Runtime.getRuntime().availableProcessors());
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "LMFileUtil-Load");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        try {
+            Map<ConfigFile, Future<?>> loads = new HashMap<>();
+            for(ConfigFile cf : configs) loads.put(cf, executor.submit(cf::load));
+            for(Map.Entry<ConfigFile, Future<?>> load : loads.entrySet()){
+                try {
+                    load.getValue().get();
+                } catch (ExecutionException ex){
+                    LMFileUtil.getInst().getMessageUtil().console(LMFileUtil.getInst().getPluginName(),
+                            "&cUnable to load " + load.getKey().getFileName() + ": " + ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex){
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Retrieves a Config by the file name
      * @param fileName The file name with the file extension
@@ -59,11 +144,254 @@ public final class FileManager {
     }
 
     /**
-     * Saves all currently loaded configuration files if the parent folder exists
+     * Saves all currently loaded configuration files that have changed since they were last saved
      */
     public void saveConfigs(){
         if(configs.isEmpty()) return;
         configs.forEach(ConfigFile::save);
     }
 
-}
\ No newline at end of file
+    /**
+     * Sets how long a save requested through {@link ConfigFile#saveAsync()} waits before being written. Every request
+     * for the same file within this window is combined into a single write.
+     * @param millis The delay in milliseconds, where 0 writes as soon as possible
+     */
+    public void setSaveDelay(long millis){
+        this.saveDelay = Math.max(0L, millis);
+    }
+
+    /**
+     * Takes a snapshot of a config file and schedules it to be written on another thread, where it is also rendered. If a
+     * write for the file is already waiting, the snapshot replaces the one it would have written.
+     * @param configFile The config file to save
+     */
+    public void scheduleSave(ConfigFile configFile){
+        if(configFile==null || !configFile.isDirty()) return;
+        RootNode snapshot = configFile.snapshot();
+        ScheduledThreadPoolExecutor scheduler = scheduler();  // Not taken inside compute, as shutdown holds the lock
+        pendingSaves.compute(configFile, (cf, existing) -> {
+            if(existing==null) scheduler.schedule(() -> writePending(cf), saveDelay, TimeUnit.MILLISECONDS);
+            return snapshot;
+        });
+    }
+
+    /**
+     * Hands the latest snapshot of a config file to the save executor once its window has passed.
+     * @param configFile The config file to write
+     */
+    private void writePending(ConfigFile configFile){
+        RootNode snapshot = pendingSaves.remove(configFile);
+        if(snapshot==null) return;
+        ExecutorService executor = saveExecutor;
+        try {
+            if(executor==null) throw new RejectedExecutionException();
+            executor.execute(() -> configFile.write(snapshot));
+        } catch (RejectedExecutionException ex){  // Shutting down, so write it here instead
+            configFile.write(snapshot);
+        }
+    }
+
+    /**
+     * Sets how long a file has to stop changing before it is reloaded while watching for changes. Editors and uploads
+     * often write a file in several steps, which are combined into a single reload.
+     * @param millis The delay in milliseconds
+     */
+    public void setReloadDelay(long millis){
+        this.reloadDelay = Math.max(0L, millis);
+    }
+
+    /**
+     * Starts watching the folders holding the config files for changes made outside the plugin, such as an admin editing
+     * a file. Once a file has stopped changing for the reload delay, it is reloaded on a background thread, but only if
+     * its contents differ from what was last loaded or saved, so the plugin's own saves never cause a reload.
+     * <p>
+     * As those reloads happen while the plugin may be using the config, only configs made concurrent with
+     * {@link ConfigFile#setConcurrent(boolean)} before they are added, or before watching starts, are watched. Any other
+     * config is reported to the console and left alone. Changes to a watched config from several threads should go
+     * through {@link ConfigFile#edit(java.util.function.Consumer)}.
+     * </p>
+     */
+    public synchronized void startWatching(){
+        if(watchService!=null) return;
+        WatchService service;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+        } catch (IOException ex){
+            LMFileUtil.getInst().getMessageUtil().console(LMFileUtil.getInst().getPluginName(), "&cUnable to watch the config files for changes.");
+            return;
+        }
+        watchService = service;
+        reloadScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "LMFileUtil-Reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reloadScheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        reloadScheduler.setRemoveOnCancelPolicy(true);  // Reloads are replaced often while a file is being edited
+        for(ConfigFile cf : configs) watch(cf);
+        Thread thread = new Thread(() -> pollChanges(service), "LMFileUtil-Watch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the config files for changes. Reloads that are still waiting are dropped, while a reload that
+     * already started finishes on its own thread.
+     */
+    public synchronized void stopWatching(){
+        if(watchService==null) return;
+        try {
+            watchService.close();
+        } catch (IOException ignored){}
+        watchService = null;
+        watchedDirs.clear();
+        pendingReloads.values().forEach(reload -> reload.cancel(false));
+        pendingReloads.clear();
+        reloadScheduler.shutdown();
+        reloadScheduler = null;
+    }
+
+    /**
+     * If the watch service is running, registers the folder of a concurrent config file with the service, unless the
+     * folder is already watched
+     * @param configFile The config file to watch
+     */
+    private synchronized void watch(ConfigFile configFile){
+        if(watchService==null) return;
+        if(!configFile.isConcurrent()){  // Reloading it on another thread could be seen half done
+            LMFileUtil.getInst().getMessageUtil().console(LMFileUtil.getInst().getPluginName(), "&e" + configFile.getFileName() +
+                    " isn't concurrent, so it won't be reloaded when it changes.");
+            return;
+        }
+        Path dir = pathOf(configFile).getParent();
+        if(dir==null || watchedDirs.containsValue(dir)) return;
+        try {
+            watchedDirs.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY), dir);
+        } catch (IOException ex){
+            LMFileUtil.getInst().getMessageUtil().console(LMFileUtil.getInst().getPluginName(), "&cUnable to watch " + dir.getFileName() + " for changes.");
+        }
+    }
+
+    /**
+     * Waits for changes in the watched folders until the watch service is closed, scheduling a reload for every config
+     * file that changed.
+     * @param service The watch service to take changes from
+     */
+    private void pollChanges(WatchService service){
+        while(true){
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException ex){
+                return;
+            }
+            Path dir = watchedDirs.get(key);
+            for(WatchEvent<?> event : key.pollEvents()){
+                if(dir==null) continue;
+                Path changed = event.context() instanceof Path name ? dir.resolve(name) : null;  // Null if events were lost
+                for(ConfigFile cf : configs){
+                    if(!cf.isConcurrent()) continue;
+                    Path path = pathOf(cf);
+                    if(changed!=null ? path.equals(changed) : dir.equals(path.getParent())) scheduleReload(cf);
+                }
+            }
+            if(!key.reset()) watchedDirs.remove(key);
+        }
+    }
+
+    /**
+     * Schedules a config file to be checked for changes once the reload delay has passed, replacing a check that is
+     * already waiting, so a burst of changes only leads to one check.
+     * @param configFile The config file to check
+     */
+    private void scheduleReload(ConfigFile configFile){
+        ScheduledThreadPoolExecutor scheduler = reloadScheduler;
+        if(scheduler==null) return;
+        pendingReloads.compute(configFile, (cf, existing) -> {
+            if(existing!=null) existing.cancel(false);
+            try {
+                return scheduler.schedule(() -> reloadIfChanged(cf), reloadDelay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex){  // Watching stopped in the meantime
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Reloads a config file if its contents on disk changed since it was last loaded or saved.
+     * @param configFile The config file to check
+     */
+    private void reloadIfChanged(ConfigFile configFile){
+        pendingReloads.remove(configFile);
+        try {  // Nothing reads the scheduled future, so anything thrown here would be lost
+            if(!configFile.hasChangedOnDisk()) return;
+            configFile.reload();
+            LMFileUtil.getInst().getMessageUtil().console(LMFileUtil.getInst().getPluginName(), "&b" + configFile.getFileName() + " was reloaded.");
+        } catch (RuntimeException ex){
+            LMFileUtil.getInst().getMessageUtil().console(LMFileUtil.getInst().getPluginName(), "&cUnable to reload " + configFile.getFileName() + ": " + ex);
+        }
+    }
+
+    private static Path pathOf(ConfigFile configFile){
+        return configFile.getFile().toPath().toAbsolutePath().normalize();
+    }
+
+    private synchronized ScheduledThreadPoolExecutor scheduler(){
+        if(saveScheduler==null){
+            saveScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "LMFileUtil-Save");
+                thread.setDaemon(true);
+                return thread;
+            });
+            saveScheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            saveExecutor = createSaveExecutor(saveScheduler);
+        }
+        return saveScheduler;
+    }
+
+    /**
+     * Creates the executor that writes files. Servers running Java 21 or newer, which includes every 1.21 server, write
+     * each file on its own virtual thread. Older versions write on the scheduler's thread.
+     * @param fallback The executor to use if virtual threads aren't available
+     * @return The executor to write files with
+     */
+    private static ExecutorService createSaveExecutor(ExecutorService fallback){
+        ExecutorService executor = newVirtualThreadExecutor();
+        return executor!=null ? executor : fallback;
+    }
+
+    /**
+     * Creates an executor that runs each task on its own virtual thread, which are only available on Java 21 or newer
+     * @return The executor, or null if virtual threads aren't available
+     */
+    private static ExecutorService newVirtualThreadExecutor(){
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | ClassCastException ex){
+            return null;
+        }
+    }
+
+    /**
+     * Stops watching for changes and stops the threads used for asynchronous saving, waiting briefly for any write in
+     * progress to finish. Saves that are still waiting are dropped, so {@link #saveConfigs()} should be called first.
+     */
+    public synchronized void shutdown(){
+        stopWatching();
+        pendingSaves.clear();
+        if(saveScheduler==null) return;
+        saveScheduler.shutdown();
+        if(saveExecutor!=saveScheduler) saveExecutor.shutdown();
+        try {
+            if(!saveExecutor.awaitTermination(5, TimeUnit.SECONDS)){
+                LMFileUtil.getInst().getMessageUtil().console(LMFileUtil.getInst().getPluginName(), "&cTimed out waiting for config files to finish saving.");
+            }
+            saveScheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex){
+            Thread.currentThread().interrupt();
+        }
+        saveScheduler = null;
+        saveExecutor = null;
+    }
+
+}
@@ -0,0 +1,220 @@
+package io.legomaniac.fileutil.core.config;
+
+import io.legomaniac.fileutil.core.LMFileUtil;
+import io.legomaniac.fileutil.core.config.node.RootNode;
+import io.legomaniac.fileutil.core.config.node.SectionNode;
+import io.legomaniac.fileutil.core.config.node.ValueNode;
+import io.legomaniac.fileutil.core.config.type.DynamicConfig;
+import io.legomaniac.fileutil.core.config.type.StaticConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads configs from files written before each test. Files are always present before loading, as creating one reports
+ * it to the server's console, which doesn't exist here.
+ */
+class ConfigFileTest {
+
+    private static final String DEFAULTS = """
+            # Settings
+            name: "Steve"
+            limit: 5
+            """;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void createLibrary(){
+        new LMFileUtil(null);
+    }
+
+    @Test
+    void loadingTheDefaultsLeavesConfigClean() throws IOException {
+        SettingsConfig config = load(new SettingsConfig(file(DEFAULTS)));
+        assertFalse(config.isDirty());
+    }
+
+    @Test
+    void loadingDifferentValuesLeavesConfigClean() throws IOException {
+        SettingsConfig config = load(new SettingsConfig(file("# Settings\nname: Alex\nlimit: 0x10\n")));
+        assertFalse(config.isDirty());
+        assertEquals(16, ((ValueNode) config.getRoot().getChild("limit")).getValue());
+
+        ((ValueNode) config.getRoot().getChild("limit")).setValue(17);
+        assertTrue(config.isDirty());
+    }
+
+    @Test
+    void loadingNewSectionsLeavesDynamicConfigClean() throws IOException {
+        SettingsConfig config = load(new SettingsConfig(file(DEFAULTS + "extra:\n  key: value\n  list:\n    - 1\n    - 2\n")));
+        assertNotNull(config.getSection("extra"));
+        assertFalse(config.isDirty());
+    }
+
+    @Test
+    void missingDefaultsLeaveConfigDirty() throws IOException {
+        StrictConfig config = load(new StrictConfig(file("# Settings\nname: \"Steve\"\n")));
+        assertTrue(config.isDirty());  // The file is missing a default, which has to be written
+    }
+
+    @Test
+    void reloadingAnUnchangedFileLeavesConfigClean() throws IOException {
+        SettingsConfig config = load(new SettingsConfig(file(DEFAULTS)));
+        config.reload();
+        config.reload();
+        assertFalse(config.isDirty());
+    }
+
+    @Test
+    void mergingKeepsTheFilesCommentsAndBlankLinesInPlace() throws IOException {
+        String contents = """
+                # Settings
+                name: "Steve"
+
+                # Limits
+                limit: 5
+
+                # Extra
+                extra: 1
+                """;
+        SettingsConfig config = load(new SettingsConfig(file(contents)));
+        assertEquals(contents.stripTrailing(), render(config));  // The last line is written without a line break
+
+        config.reload();
+        config.reload();
+        assertEquals(contents.stripTrailing(), render(config));  // Nothing is added twice
+        assertFalse(config.isDirty());
+    }
+
+    @Test
+    void mergingPutsDefaultsMissingFromTheFileAfterIt() throws IOException {
+        SettingsConfig config = load(new SettingsConfig(file("# Settings\n\nname: \"Alex\"\n")));
+        assertEquals("# Settings\n\nname: \"Alex\"\nlimit: 5", render(config));
+        assertTrue(config.isDirty());
+    }
+
+    @Test
+    void reloadingMergesInPlace() throws IOException {
+        File file = file(DEFAULTS);
+        SettingsConfig config = load(new SettingsConfig(file));
+        RootNode root = config.getRoot();
+        ValueNode limit = (ValueNode) root.getChild("limit");
+
+        Files.writeString(file.toPath(), "# Settings\nname: \"Steve\"\nlimit: 9\n");
+        config.reload();
+
+        assertSame(root, config.getRoot());
+        assertEquals(9, limit.getValue());  // A node kept by the plugin sees the reloaded value
+    }
+
+    @Test
+    void reloadingAConcurrentConfigReplacesItsRoot() throws IOException {
+        File file = file(DEFAULTS);
+        SettingsConfig config = new SettingsConfig(file);
+        config.setConcurrent(true);
+        load(config);
+        RootNode root = config.getRoot();
+
+        Files.writeString(file.toPath(), "# Settings\nname: \"Steve\"\nlimit: 9\n");
+        config.reload();
+
+        assertNotSame(root, config.getRoot());
+        assertEquals(5, ((ValueNode) root.getChild("limit")).getValue());  // Readers of the old root never see a change
+        assertEquals(9, ((ValueNode) config.getRoot().getChild("limit")).getValue());
+        assertTrue(config.getRoot().isConcurrent());
+    }
+
+    @Test
+    void snapshotsFromBeforeAReloadAreNotWritten() throws IOException {
+        File file = file(DEFAULTS);
+        SettingsConfig config = load(new SettingsConfig(file));
+        ((ValueNode) config.getRoot().getChild("limit")).setValue(6);
+        RootNode queued = config.snapshot();
+
+        String edited = "# Settings\nname: \"Alex\"\n";  // Without the limit, so the reloaded config is still dirty
+        Files.writeString(file.toPath(), edited);
+        config.reload();
+        assertTrue(config.isDirty());
+        config.write(queued);
+
+        assertEquals(edited, Files.readString(file.toPath()));
+        assertEquals("Alex", ((ValueNode) config.getRoot().getChild("name")).getValue());
+    }
+
+    @Test
+    void copyingTheSameRawValueChangesNothing(){
+        SectionNode section = new SectionNode(0, "section", "section");
+        ValueNode value = ValueNode.fromRaw("section.key", "key", "1");
+        section.add(value);
+        long modCount = section.getModCount();
+
+        value.copyValue(ValueNode.fromRaw("section.key", "key", "1"));
+        assertEquals(modCount, section.getModCount());
+
+        value.copyValue(ValueNode.fromRaw("section.key", "key", "2"));
+        assertNotEquals(modCount, section.getModCount());
+    }
+
+    private File file(String contents) throws IOException {
+        Path file = dir.resolve("config.yml");
+        Files.writeString(file, contents);
+        return file.toFile();
+    }
+
+    private static String render(ConfigFile config){
+        StringBuilder out = new StringBuilder();
+        config.getRoot().saveRoot(out);
+        return out.toString();
+    }
+
+    private static <T extends ConfigFile> T load(T config){
+        config.load();
+        return config;
+    }
+
+    /**
+     * A dynamic config holding a comment and two values
+     */
+    private static final class SettingsConfig extends DynamicConfig {
+
+        SettingsConfig(File file){
+            super(file.getParentFile(), file);
+        }
+
+        @Override
+        protected void defaultNodes(){
+            createCommentNode("# Settings");
+            createValueNode("name", "name", "Steve");
+            createValueNode("limit", "limit", 5);
+        }
+
+    }
+
+    /**
+     * A static config with the same defaults as {@link SettingsConfig}
+     */
+    private static final class StrictConfig extends StaticConfig {
+
+        StrictConfig(File file){
+            super(file.getParentFile(), file);
+        }
+
+        @Override
+        protected void defaultNodes(){
+            createCommentNode("# Settings");
+            createValueNode("name", "name", "Steve");
+            createValueNode("limit", "limit", 5);
+        }
+
+    }
+
+}
@@ -0,0 +1,133 @@
+package io.legomaniac.fileutil.core.config.io;
+
+import io.legomaniac.fileutil.core.config.io.ConfigTokenizer.TokenType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigTokenizerTest {
+
+    private static final String CONFIG = """
+            # Header comment
+
+            name: "Steve # not a comment" # inline
+            limits:
+              max: 0x1F
+              ratio: .inf
+              # Indented comment
+            worlds:
+              - world
+              - 'nether'
+            empty: ~
+            """;
+
+    @Test
+    void readsEveryKindOfLine(){
+        List<String> tokens = tokens(new ConfigTokenizer(buffer(CONFIG)));
+        assertEquals(List.of(
+                "COMMENT 0",
+                "BLANK 0",
+                "VALUE 0 name \"Steve # not a comment\" inline",
+                "SECTION 0 limits",
+                "VALUE 2 max 0x1F",
+                "VALUE 2 ratio .inf",
+                "COMMENT 2",
+                "SECTION 0 worlds",
+                "LIST_ITEM 2 world",
+                "LIST_ITEM 2 'nether'",
+                "VALUE 0 empty ~"), tokens);
+    }
+
+    @Test
+    void rebuildsTheSameLines() throws IOException {
+        assertEquals(CONFIG, rebuild(new ConfigTokenizer(buffer(CONFIG))));
+    }
+
+    @Test
+    void channelAndBufferReadTheSameTokens() throws IOException {
+        String longValue = "x".repeat(20_000);  // Longer than the channel's buffer, which has to grow to fit it
+        String config = CONFIG + "long: " + longValue + "\nafter: 1\n";
+        ConfigTokenizer channel = new ConfigTokenizer(Channels.newChannel(
+                new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(config, rebuild(channel));
+        assertEquals(tokens(new ConfigTokenizer(buffer(config))), tokens(new ConfigTokenizer(Channels.newChannel(
+                new ByteArrayInputStream(config.getBytes(StandardCharsets.UTF_8))))));
+    }
+
+    @Test
+    void skipsLinesWithoutAKnownFormat(){
+        List<String> tokens = tokens(new ConfigTokenizer(buffer("first: 1\nnot a key value line\nsecond: 2\n")));
+        assertEquals(List.of("VALUE 0 first 1", "VALUE 0 second 2"), tokens);
+    }
+
+    @Test
+    void pushBackReturnsTheSameLine() throws IOException {
+        ConfigTokenizer tokens = new ConfigTokenizer(buffer("first: 1\nsecond: 2\n"));
+        assertTrue(tokens.next());
+        tokens.pushBack();
+        assertTrue(tokens.next());
+        assertEquals("first", tokens.key());
+        assertTrue(tokens.next());
+        assertEquals("second", tokens.key());
+        assertFalse(tokens.next());
+    }
+
+    private static ByteBuffer buffer(String config){
+        return ByteBuffer.wrap(config.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Describes every token as its type and indent, followed by its key, raw value and inline comment where it has them
+     */
+    private static List<String> tokens(ConfigTokenizer tokens){
+        List<String> described = new ArrayList<>();
+        try(tokens){
+            while(tokens.next()){
+                StringBuilder token = new StringBuilder().append(tokens.type()).append(' ').append(tokens.indent());
+                if(tokens.key()!=null) token.append(' ').append(tokens.key());
+                if(tokens.rawValue()!=null) token.append(' ').append(tokens.rawValue());
+                if(tokens.inlineComment()!=null) token.append(' ').append(tokens.inlineComment());
+                described.add(token.toString());
+            }
+        } catch (IOException ex){
+            fail(ex);
+        }
+        return described;
+    }
+
+    /**
+     * Writes every token back out as a line, using only the parts the tokenizer separated
+     */
+    private static String rebuild(ConfigTokenizer tokens) throws IOException {
+        StringBuilder out = new StringBuilder();
+        try(tokens){
+            while(tokens.next()){
+                TokenType type = tokens.type();
+                if(type==TokenType.BLANK){
+                    out.append('\n');
+                    continue;
+                }
+                if(type==TokenType.COMMENT){
+                    out.append(tokens.line()).append('\n');
+                    continue;
+                }
+                out.append(" ".repeat(tokens.indent()));
+                if(type==TokenType.LIST_ITEM) out.append("- ").append(tokens.rawValue());
+                else out.append(tokens.key()).append(':');
+                if(type==TokenType.VALUE) out.append(' ').append(tokens.rawValue());
+                if(tokens.inlineComment()!=null) out.append(" # ").append(tokens.inlineComment());
+                out.append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+}
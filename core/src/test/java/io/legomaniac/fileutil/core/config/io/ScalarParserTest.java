@@ -0,0 +1,80 @@
+package io.legomaniac.fileutil.core.config.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalarParserTest {
+
+    @Test
+    void parsesHexIntegers(){
+        assertEquals(31, ScalarParser.parse("0x1F"));
+        assertEquals(31, ScalarParser.parse("0X1f"));
+        assertEquals(-16, ScalarParser.parse("-0x10"));
+        assertEquals(0xFFFFFFFFFL, ScalarParser.parse("0xFFFFFFFFF"));
+        assertEquals("0x", ScalarParser.parse("0x"));
+    }
+
+    @Test
+    void parsesDigitSeparators(){
+        assertEquals(1_000_000, ScalarParser.parse("1_000_000"));
+        assertEquals(31, ScalarParser.parse("0x1_F"));
+        assertEquals(new BigDecimal("1000.5"), ScalarParser.parse("1_000.5"));
+        assertEquals("_1", ScalarParser.parse("_1"));
+    }
+
+    @Test
+    void parsesInfinityAndNaN(){
+        assertEquals(Double.POSITIVE_INFINITY, ScalarParser.parse(".inf"));
+        assertEquals(Double.POSITIVE_INFINITY, ScalarParser.parse("+.inf"));
+        assertEquals(Double.POSITIVE_INFINITY, ScalarParser.parse(".INF"));
+        assertEquals(Double.NEGATIVE_INFINITY, ScalarParser.parse("-.inf"));
+        assertEquals(Double.NaN, ScalarParser.parse(".nan"));
+        assertEquals(Double.NaN, ScalarParser.parse(".NaN"));
+    }
+
+    @Test
+    void parsesNull(){
+        assertNull(ScalarParser.parse(null));
+        assertNull(ScalarParser.parse("~"));
+        assertNull(ScalarParser.parse("null"));
+        assertNull(ScalarParser.parse("NULL"));
+        assertEquals("~x", ScalarParser.parse("~x"));
+        assertEquals("nil", ScalarParser.parse("nil"));
+    }
+
+    @Test
+    void givesIntegersTheSmallestType(){
+        assertEquals(-7, ScalarParser.parse("-7"));
+        assertEquals(7, ScalarParser.parse("+7"));
+        assertEquals(2147483648L, ScalarParser.parse("2147483648"));
+        assertEquals(new BigDecimal("99999999999999999999"), ScalarParser.parse("99999999999999999999"));
+        assertEquals(new BigDecimal("1.5"), ScalarParser.parse("1.5"));
+    }
+
+    @Test
+    void parsesBooleansAndStrings(){
+        assertEquals(true, ScalarParser.parse("true"));
+        assertEquals(false, ScalarParser.parse("False"));
+        assertEquals("yes", ScalarParser.parse("yes"));
+        assertEquals("1.2.3", ScalarParser.parse("1.2.3"));
+        assertEquals(5, ScalarParser.parse("  5  "));
+        assertEquals("", ScalarParser.parse(""));
+    }
+
+    @Test
+    void quotedValuesOnlyKeepPlainNumbers(){
+        assertEquals(12, ScalarParser.parse("\"12\""));
+        assertEquals(new BigDecimal("1.5"), ScalarParser.parse("\"1.5\""));
+        assertEquals("x", ScalarParser.parse("' x '"));
+        assertEquals("", ScalarParser.parse("\"\""));
+        assertEquals("0x1F", ScalarParser.parse("\"0x1F\""));
+        assertEquals("1_000", ScalarParser.parse("'1_000'"));
+        assertEquals(".inf", ScalarParser.parse("\".inf\""));
+        assertEquals("~", ScalarParser.parse("\"~\""));
+        assertEquals("true", ScalarParser.parse("\"true\""));
+    }
+
+}
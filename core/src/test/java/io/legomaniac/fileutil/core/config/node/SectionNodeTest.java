@@ -0,0 +1,76 @@
+package io.legomaniac.fileutil.core.config.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SectionNodeTest {
+
+    @Test
+    void insertingKeepsTheOrderOfSnapshots(){
+        SectionNode parent = new SectionNode(0, "parent", "parent");
+        parent.add(new CommentNode("# C"));
+        parent.add(new SectionNode(0, "parent.s0", "s0"));
+        parent.add(new SectionNode(0, "parent.s1", "s1"));
+        parent.snapshot();  // Caches the snapshots of both subsections with their current index
+
+        parent.add(new ValueNode("parent.d", "d", 1), 1);
+        parent.add(new ValueNode("parent.e", "e", 2), 1);  // Moves both subsections past the index they were copied at
+
+        List<String> expected = List.of("# C", "e", "d", "s0", "s1");
+        assertEquals(expected, describe(parent));
+        assertEquals(expected, describe(parent.snapshot()));
+        assertEquals(expected, describe(parent.deepCopy()));
+    }
+
+    @Test
+    void insertingRenumbersEveryFollowingNode(){
+        SectionNode parent = new SectionNode(0, "parent", "parent");
+        for(int i = 0; i < 4; i++) parent.add(new ValueNode("parent.v" + i, "v" + i, i));
+
+        parent.add(new BlankNode(), 0);
+        parent.add(new CommentNode("# C"), 3);
+
+        List<ConfigNode> children = parent.getChildren();
+        for(int i = 0; i < children.size(); i++) assertEquals(i, children.get(i).getIndex());
+        assertEquals(List.of("", "v0", "v1", "# C", "v2", "v3"), describe(parent.snapshot()));
+    }
+
+    @Test
+    void insertingMarksEverySectionAboveOnce(){
+        SectionNode root = new SectionNode(0, "", "");
+        SectionNode parent = new SectionNode(0, "parent", "parent");
+        root.add(parent);
+        for(int i = 0; i < 4; i++) parent.add(new SectionNode(0, "parent.s" + i, "s" + i));
+        long parentCount = parent.getModCount();
+        long rootCount = root.getModCount();
+
+        parent.add(new CommentNode("# C"), 0);
+
+        assertEquals(parentCount + 1, parent.getModCount());
+        assertEquals(rootCount + 1, root.getModCount());
+    }
+
+    @Test
+    void snapshotsCannotBeChanged(){
+        SectionNode parent = new SectionNode(0, "parent", "parent");
+        parent.add(new ValueNode("parent.v", "v", 1));
+        SectionNode snapshot = parent.snapshot();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(new BlankNode()));
+        assertThrows(UnsupportedOperationException.class, () -> ((ValueNode) snapshot.getChild("v")).setValue(2));
+        assertSame(snapshot, parent.snapshot());  // Reused while the section hasn't changed
+    }
+
+    /**
+     * Describes every child as its key, or its text for comments and blank lines
+     */
+    private static List<String> describe(SectionNode section){
+        return section.getChildren().stream()
+                .map(node -> node instanceof CommentNode comment ? comment.getComment() : node instanceof BlankNode ? "" : node.getKey())
+                .toList();
+    }
+
+}
@@ -0,0 +1,61 @@
+package io.legomaniac.fileutil.core.config.node.section;
+
+import io.legomaniac.fileutil.core.config.io.ConfigWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimitiveListSectionNodeTest {
+
+    @Test
+    void growsPastItsFirstArray(){
+        IntListSectionNode list = new IntListSectionNode(0, "nums", "nums");
+        for(int i = 0; i < 100; i++) list.add(i);
+        assertEquals(100, list.size());
+        assertEquals(99, list.get(99));
+        assertEquals(4950, list.stream().sum());
+        assertEquals(100, list.toArray().length);
+    }
+
+    @Test
+    void findsValuesAddedAfterTheFirstCheck(){
+        LongListSectionNode list = new LongListSectionNode(0, "ids", "ids", 0L, 5L);
+        assertTrue(list.containsNode(0L));
+        assertFalse(list.containsNode(6L));
+        list.add(6L);
+        assertTrue(list.containsNode(6L));
+        assertTrue(list.containsNode(6));  // Integers are widened
+        assertFalse(list.containsNode("6"));
+    }
+
+    @Test
+    void createPicksAPrimitiveListForIntsAndLongs(){
+        assertInstanceOf(IntListSectionNode.class, ListSectionNode.create(0, "a", "a", 1));
+        assertInstanceOf(LongListSectionNode.class, ListSectionNode.create(0, "a", "a", 1L));
+        assertEquals(ListSectionNode.class, ListSectionNode.create(0, "a", "a", 1.5).getClass());
+    }
+
+    @Test
+    void writesEveryValue() throws IOException {
+        IntListSectionNode list = new IntListSectionNode(0, "nums", "nums", -1, 0, Integer.MAX_VALUE);
+        StringBuilder out = new StringBuilder();
+        ConfigWriter writer = new ConfigWriter(out);
+        list.write(writer, 0);
+        writer.finish();
+        assertEquals("nums:\n  - -1\n  - 0\n  - 2147483647", out.toString());
+        assertEquals(List.of(-1, 0, Integer.MAX_VALUE), list.getValues());
+    }
+
+    @Test
+    void snapshotsKeepTheirValues(){
+        IntListSectionNode list = new IntListSectionNode(0, "nums", "nums", 1, 2);
+        IntListSectionNode snapshot = (IntListSectionNode) list.snapshot();
+        list.add(3);
+        assertArrayEquals(new int[]{1, 2}, snapshot.toArray());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(4));
+    }
+
+}